@@ -0,0 +1,71 @@
+package com.github.fotohh.benchmarks;
+
+import com.github.fotohh.command.ArgumentParser;
+import com.github.fotohh.command.ArgumentTokens;
+import com.github.fotohh.command.CommandArgument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ArgumentParser}, {@link CommandArgument} and {@link ArgumentTokens} for valid and malformed input.
+ * {@code exceptionParseInt} is the exception-driven parsing the library used before, as a baseline.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ArgumentParsingBenchmark {
+
+    @Param({"1234567", "12x4567"})
+    public String number;
+
+    public String uuid = "123e4567-e89b-12d3-a456-426614174000";
+    public String[] message = {"send", "\"Some", "Player\"", "--urgent", "--ttl=5m", "Hello", "there,", "how", "are", "you?"};
+
+    @Benchmark
+    public int parseInt() {
+        return ArgumentParser.parseInt(number, -1);
+    }
+
+    @Benchmark
+    public int exceptionParseInt() {
+        try {
+            return Integer.parseInt(number);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    @Benchmark
+    public double parseDouble() {
+        return ArgumentParser.parseDouble(number, -1);
+    }
+
+    @Benchmark
+    public boolean isUUID() {
+        return ArgumentParser.isUUID(uuid);
+    }
+
+    @Benchmark
+    public int commandArgumentGetInt() {
+        return new CommandArgument(new String[]{number}).getInt(0, -1);
+    }
+
+    @Benchmark
+    public Object tokenize() {
+        ArgumentTokens tokens = ArgumentTokens.of(message);
+        return tokens.hasFlag("urgent") ? tokens.rest(2) : tokens.view(1);
+    }
+}
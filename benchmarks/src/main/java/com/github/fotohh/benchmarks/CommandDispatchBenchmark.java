@@ -0,0 +1,92 @@
+package com.github.fotohh.benchmarks;
+
+import com.github.fotohh.command.ArgumentType;
+import com.github.fotohh.command.CommandHandler;
+import com.github.fotohh.command.CommandParameter;
+import com.github.fotohh.command.SubCommand;
+import com.github.fotohh.command.errors.SenderOnly;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a full {@link CommandHandler#onCommand} invocation of a command with a permission, a sender check,
+ * an argument count, a typed parameter and a sub-command tree, for accepted, rejected and malformed input.
+ * Run with {@code -prof gc} to see the allocation per invocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CommandDispatchBenchmark {
+
+    @Param({"valid", "sub-command", "malformed", "no-permission", "console", "too-few-args"})
+    public String scenario;
+
+    private CommandHandler handler;
+    private Command command;
+    private CommandSender sender;
+    private String[] args;
+
+    private int result;
+
+    @Setup
+    public void setup() {
+        handler = new CommandHandler("bench", Senders.plugin(), new SenderOnly(), 1)
+                .setNoPermissionMessage("No permission.", "bench.use")
+                .setSenderMessage("Players only.")
+                .setNotEnoughArgsMessage("Not enough arguments.")
+                .setParameters(CommandParameter.of("amount", ArgumentType.INTEGER));
+        handler.onExecute(execution -> result += execution.getInt("amount", 0));
+        handler.registerSubCommand(SubCommand.literal("give").alias("g")
+                .then(SubCommand.argument("amount", ArgumentType.INTEGER)
+                        .onExecute(execution -> result += execution.getInt("amount", 0))));
+        command = Senders.command("bench");
+        sender = Senders.player(true);
+
+        switch (scenario) {
+            case "valid":
+                args = new String[]{"64"};
+                break;
+            case "sub-command":
+                args = new String[]{"give", "64"};
+                break;
+            case "malformed":
+                args = new String[]{"give", "sixty-four"};
+                break;
+            case "no-permission":
+                sender = Senders.player(false);
+                args = new String[]{"64"};
+                break;
+            case "console":
+                sender = Senders.console();
+                args = new String[]{"64"};
+                break;
+            case "too-few-args":
+                args = new String[0];
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown scenario: " + scenario);
+        }
+    }
+
+    @Benchmark
+    public int dispatch() {
+        handler.onCommand(sender, command, "bench", args);
+        return result;
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.fotohh.benchmarks;
+
+import com.github.fotohh.command.CommandHandler;
+import com.github.fotohh.command.errors.SenderAndConsole;
+import com.github.fotohh.command.errors.SenderOnly;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of each validation stage of a {@link CommandHandler} on its own, for an invocation it accepts.
+ * Compare each stage with {@code none} to get the cost of the stage.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PipelineStageBenchmark {
+
+    @Param({"none", "rate-limit", "permission", "cached-permission", "sender", "arguments", "custom-error"})
+    public String stage;
+
+    private CommandHandler handler;
+    private Command command;
+    private CommandSender sender;
+    private String[] args;
+
+    private int result;
+
+    @Setup
+    public void setup() {
+        handler = new CommandHandler("stage-" + stage, Senders.plugin(), stage.equals("sender") ? new SenderOnly() : new SenderAndConsole(), 0);
+        switch (stage) {
+            case "none":
+                break;
+            case "rate-limit":
+                // Enough permits that the benchmark never runs out of them.
+                handler.setRateLimit(Integer.MAX_VALUE, 1, TimeUnit.SECONDS, "Slow down.");
+                break;
+            case "permission":
+                handler.setNoPermissionMessage("No permission.", "bench.use");
+                break;
+            case "cached-permission":
+                handler.setNoPermissionMessage("No permission.", "bench.use").cachePermissions(1, TimeUnit.MINUTES);
+                break;
+            case "sender":
+                handler.setSenderMessage("Players only.");
+                break;
+            case "arguments":
+                handler.setNotEnoughArgsMessage("Not enough arguments.");
+                break;
+            case "custom-error":
+                handler.registerCustomError((sender, command, label, args) -> args.length > 3);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown stage: " + stage);
+        }
+        handler.onExecute(execution -> result++);
+        command = Senders.command("bench");
+        sender = Senders.player(true);
+        args = new String[]{"64"};
+    }
+
+    @Benchmark
+    public int dispatch() {
+        handler.onCommand(sender, command, "bench", args);
+        return result;
+    }
+}
@@ -1,10 +1,15 @@
 package com.github.fotohh;
 
+import com.github.fotohh.command.CommandHandler;
+import com.github.fotohh.command.annotation.CommandIndex;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.event.Listener;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.ServiceLoader;
 
 /**
  * GeneralSpigotHelperAPI provides utility methods to register commands and event listeners in a Spigot-based Minecraft plugin.
@@ -75,6 +80,29 @@ public class GeneralSpigotHelperAPI {
         Arrays.stream(command).forEach(commandRegister -> plugin.getCommand(commandRegister.getCommandName()).setExecutor(commandRegister.getCommandExecutor()));
     }
 
+    /**
+     * Registers the commands declared with {@link com.github.fotohh.command.annotation.Command}.
+     * The handlers are created by the index the annotation processor generated when the plugin was compiled,
+     * so the plugin's classes are neither scanned nor inspected through reflection.
+     *
+     * @return The registered CommandHandler instances.
+     * @since 3.1.0
+     */
+    public List<CommandHandler> registerAnnotatedCommands() {
+        List<CommandHandler> handlers = new ArrayList<>();
+        ClassLoader classLoader = plugin.getClass().getClassLoader();
+        for (CommandIndex index : ServiceLoader.load(CommandIndex.class, classLoader)) {
+            // Only the index of this plugin's jar, not one of a library on a parent class loader.
+            if (index.getClass().getClassLoader() == classLoader) {
+                handlers.addAll(index.register(plugin));
+            }
+        }
+        if (handlers.isEmpty()) {
+            plugin.getLogger().warning("No annotated commands found. Is the annotation processor of GeneralSpigotHelper enabled?");
+        }
+        return handlers;
+    }
+
     /**
      * Registers multiple event listeners with the plugin's event manager.
      *
@@ -1,5 +1,6 @@
 package com.github.fotohh;
 
+import com.github.fotohh.command.PermissionCache;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 
@@ -34,6 +35,7 @@ public class PermissionManager {
      */
     public void givePermission(Player player, String permissionNode) {
         player.addAttachment(plugin).setPermission(permissionNode, true);
+        PermissionCache.get(plugin).invalidate(player);
     }
 
     /**
@@ -44,5 +46,6 @@ public class PermissionManager {
      */
     public void revokePermission(Player player, String permissionNode) {
         player.addAttachment(plugin).unsetPermission(permissionNode);
+        PermissionCache.get(plugin).invalidate(player);
     }
 }
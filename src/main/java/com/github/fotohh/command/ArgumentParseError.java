@@ -0,0 +1,67 @@
+package com.github.fotohh.command;
+
+/**
+ * The ArgumentParseError class describes an argument that could not be bound to its declared type.
+ * It is reported through {@link CommandExecution#getParseError()} instead of being thrown.
+ *
+ * @since 3.1.0
+ */
+public final class ArgumentParseError {
+
+    private final int index;
+    private final String name;
+    private final ArgumentType expectedType;
+    private final String input;
+
+    ArgumentParseError(int index, String name, ArgumentType expectedType, String input) {
+        this.index = index;
+        this.name = name;
+        this.expectedType = expectedType;
+        this.input = input;
+    }
+
+    /**
+     * Gets the index of the argument that could not be parsed.
+     *
+     * @return The index in the command arguments.
+     * @since 3.1.0
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Gets the name of the parameter the argument was bound to.
+     *
+     * @return The parameter name.
+     * @since 3.1.0
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the type the argument was expected to have.
+     *
+     * @return The expected ArgumentType.
+     * @since 3.1.0
+     */
+    public ArgumentType getExpectedType() {
+        return expectedType;
+    }
+
+    /**
+     * Gets the raw input that could not be parsed.
+     *
+     * @return The argument as typed by the sender.
+     * @since 3.1.0
+     */
+    public String getInput() {
+        return input;
+    }
+
+    @Override
+    public String toString() {
+        return "Invalid " + expectedType.name().toLowerCase() + " for '" + name + "': " + input;
+    }
+}
@@ -8,6 +8,9 @@ import java.util.UUID;
 
 /**
  * The ArgumentParser class provides utility methods for parsing command arguments into different data types.
+ * Numeric input is validated before it is parsed, so malformed arguments never throw (and never fill a stack trace).
+ * {@link #parseDouble(String, double)}, {@link #parseFloat(String, float)} and {@link #parseUUID(String)} still
+ * fall back to the JDK parsers, so they keep accepting the same input as before.
  */
 public class ArgumentParser {
 
@@ -20,11 +23,7 @@ public class ArgumentParser {
      * @return The parsed integer value if successful, otherwise the default value.
      */
     public static int parseInt(String arg, int defaultValue) {
-        try {
-            return Integer.parseInt(arg);
-        } catch (NumberFormatException e) {
-            return defaultValue;
-        }
+        return isInt(arg) ? Integer.parseInt(arg) : defaultValue;
     }
 
     /**
@@ -80,11 +79,7 @@ public class ArgumentParser {
      * @return The parsed long value if successful, otherwise the default value.
      */
     public static long parseLong(String arg, long defaultValue) {
-        try {
-            return Long.parseLong(arg);
-        } catch (NumberFormatException e) {
-            return defaultValue;
-        }
+        return isLong(arg) ? Long.parseLong(arg) : defaultValue;
     }
 
     /**
@@ -104,6 +99,9 @@ public class ArgumentParser {
      * @return The UUID object if the parsing is successful, otherwise null.
      */
     public static UUID parseUUID(String arg) {
+        if (isUUID(arg)) return UUID.fromString(arg);
+        // UUID.fromString also accepts shortened groups such as 1-2-3-4-5, but always needs four dashes.
+        if (arg == null || dashes(arg) != 4) return null;
         try {
             return UUID.fromString(arg);
         } catch (IllegalArgumentException e) {
@@ -118,10 +116,131 @@ public class ArgumentParser {
      * @return The Material object if found, otherwise null.
      */
     public static Material parseMaterial(String arg) {
+        if (arg == null) return null;
         try {
             return Material.matchMaterial(arg);
         } catch (IllegalArgumentException e) {
             return null;
         }
     }
+
+    /**
+     * Checks if the provided argument can be parsed into an integer.
+     *
+     * @param arg The argument to check.
+     * @return true if {@link Integer#parseInt(String)} would succeed for the argument, false otherwise.
+     * @since 3.1.0
+     */
+    public static boolean isInt(String arg) {
+        return isIntegral(arg, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Checks if the provided argument can be parsed into a long.
+     *
+     * @param arg The argument to check.
+     * @return true if {@link Long#parseLong(String)} would succeed for the argument, false otherwise.
+     * @since 3.1.0
+     */
+    public static boolean isLong(String arg) {
+        return isIntegral(arg, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Checks if the provided argument is a decimal number such as {@code 1}, {@code -2.5}, {@code .5} or {@code 1e3}.
+     * Special values like {@code NaN} or {@code Infinity} and hexadecimal notation are not accepted, which is how
+     * typed command arguments are bound; {@link #parseDouble(String, double)} still parses them.
+     *
+     * @param arg The argument to check.
+     * @return true if the argument can be parsed into a double or float, false otherwise.
+     * @since 3.1.0
+     */
+    public static boolean isDouble(String arg) {
+        if (arg == null) return false;
+        int length = arg.length();
+        int i = 0;
+        if (i < length && (arg.charAt(i) == '-' || arg.charAt(i) == '+')) i++;
+        int integerDigits = 0;
+        while (i < length && isAsciiDigit(arg.charAt(i))) {
+            i++;
+            integerDigits++;
+        }
+        int fractionDigits = 0;
+        if (i < length && arg.charAt(i) == '.') {
+            i++;
+            while (i < length && isAsciiDigit(arg.charAt(i))) {
+                i++;
+                fractionDigits++;
+            }
+        }
+        if (integerDigits == 0 && fractionDigits == 0) return false;
+        if (i < length && (arg.charAt(i) == 'e' || arg.charAt(i) == 'E')) {
+            i++;
+            if (i < length && (arg.charAt(i) == '-' || arg.charAt(i) == '+')) i++;
+            int exponentDigits = 0;
+            while (i < length && isAsciiDigit(arg.charAt(i))) {
+                i++;
+                exponentDigits++;
+            }
+            if (exponentDigits == 0) return false;
+        }
+        return i == length;
+    }
+
+    /**
+     * Checks if the provided argument is a UUID in its canonical 8-4-4-4-12 form.
+     *
+     * @param arg The argument to check.
+     * @return true if the argument can be parsed into a UUID, false otherwise.
+     * @since 3.1.0
+     */
+    public static boolean isUUID(String arg) {
+        if (arg == null || arg.length() != 36) return false;
+        for (int i = 0; i < 36; i++) {
+            char c = arg.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') return false;
+            } else if (Character.digit(c, 16) < 0 || c > 'f') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isIntegral(String arg, long min, long max) {
+        if (arg == null || arg.isEmpty()) return false;
+        int length = arg.length();
+        int i = 0;
+        boolean negative = false;
+        char first = arg.charAt(0);
+        if (first == '-' || first == '+') {
+            if (length == 1) return false;
+            negative = first == '-';
+            i = 1;
+        }
+        // Accumulate negatively like Long.parseLong so the minimum value does not overflow.
+        long limit = negative ? min : -max;
+        long multiplyMin = limit / 10;
+        long result = 0;
+        for (; i < length; i++) {
+            int digit = Character.digit(arg.charAt(i), 10);
+            if (digit < 0 || result < multiplyMin) return false;
+            result *= 10;
+            if (result < limit + digit) return false;
+            result -= digit;
+        }
+        return true;
+    }
+
+    private static int dashes(String arg) {
+        int count = 0;
+        for (int i = 0; i < arg.length(); i++) {
+            if (arg.charAt(i) == '-') count++;
+        }
+        return count;
+    }
+
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
 }
@@ -0,0 +1,331 @@
+package com.github.fotohh.command;
+
+import java.util.Arrays;
+
+/**
+ * The ArgumentTokens class splits the arguments of a command into positional tokens and flags in a single pass.
+ * Tokens are stored as offsets into the original input, so reading one does not copy it unless it contains
+ * escape sequences or is converted to a String.
+ * <ul>
+ *     <li>{@code "two words"} and {@code 'two words'} are one token; a backslash escapes the next character.</li>
+ *     <li>{@code --name} and {@code --name=value} are long flags, the value may be quoted.</li>
+ *     <li>{@code -abc} are the short flags {@code a}, {@code b} and {@code c}. Negative numbers are tokens, not flags.</li>
+ *     <li>{@code --} ends the flags; everything after it is a token.</li>
+ * </ul>
+ * An unterminated quote extends to the end of the input.
+ *
+ * @since 3.1.0
+ */
+public final class ArgumentTokens {
+
+    private static final int NONE = -1;
+
+    private final String input;
+
+    private int tokenCount;
+    private int[] tokenStarts = new int[8];
+    private int[] tokenEnds = new int[8];
+    private int[] tokenRawStarts = new int[8];
+    private boolean[] tokenEscaped = new boolean[8];
+
+    private int flagCount;
+    private int[] flagNameStarts = new int[4];
+    private int[] flagNameEnds = new int[4];
+    private int[] flagValueStarts = new int[4];
+    private int[] flagValueEnds = new int[4];
+    private boolean[] flagEscaped = new boolean[4];
+
+    // Position and escape state of the last token read by readToken.
+    private int readStart;
+    private int readEnd;
+    private boolean readEscaped;
+
+    /**
+     * Tokenizes the given input.
+     *
+     * @param input The arguments of the command as typed, separated by spaces.
+     * @since 3.1.0
+     */
+    public ArgumentTokens(String input) {
+        this.input = input;
+        tokenize();
+    }
+
+    /**
+     * Tokenizes the arguments Bukkit split on spaces. They are joined once and not split again.
+     *
+     * @param args The arguments of the command.
+     * @return The new ArgumentTokens instance.
+     * @since 3.1.0
+     */
+    public static ArgumentTokens of(String[] args) {
+        return new ArgumentTokens(String.join(" ", args));
+    }
+
+    private void tokenize() {
+        int length = input.length();
+        boolean flagsEnded = false;
+        int i = 0;
+        while (i < length) {
+            char c = input.charAt(i);
+            if (c == ' ') {
+                i++;
+                continue;
+            }
+            if (!flagsEnded && c == '-' && i + 1 < length && isFlagStart(input.charAt(i + 1))) {
+                if (input.charAt(i + 1) != '-') {
+                    int j = i + 1;
+                    while (j < length && input.charAt(j) != ' ') {
+                        addFlag(j, j + 1, NONE, NONE, false);
+                        j++;
+                    }
+                    i = j;
+                    continue;
+                }
+                int nameStart = i + 2;
+                if (nameStart >= length || input.charAt(nameStart) == ' ') {
+                    flagsEnded = true;
+                    i = nameStart;
+                    continue;
+                }
+                int nameEnd = nameStart;
+                while (nameEnd < length && input.charAt(nameEnd) != ' ' && input.charAt(nameEnd) != '=') nameEnd++;
+                if (nameEnd < length && input.charAt(nameEnd) == '=') {
+                    i = readToken(nameEnd + 1);
+                    addFlag(nameStart, nameEnd, readStart, readEnd, readEscaped);
+                } else {
+                    addFlag(nameStart, nameEnd, NONE, NONE, false);
+                    i = nameEnd;
+                }
+                continue;
+            }
+            int rawStart = i;
+            i = readToken(i);
+            addToken(rawStart);
+        }
+    }
+
+    private static boolean isFlagStart(char c) {
+        return c != ' ' && c != '.' && (c < '0' || c > '9');
+    }
+
+    /**
+     * Reads a quoted or unquoted token into readStart, readEnd and readEscaped.
+     *
+     * @return The position after the token.
+     */
+    private int readToken(int from) {
+        int length = input.length();
+        readEscaped = false;
+        if (from < length && (input.charAt(from) == '"' || input.charAt(from) == '\'')) {
+            char quote = input.charAt(from);
+            int i = from + 1;
+            while (i < length && input.charAt(i) != quote) {
+                if (input.charAt(i) == '\\' && i + 1 < length) {
+                    readEscaped = true;
+                    i++;
+                }
+                i++;
+            }
+            readStart = from + 1;
+            readEnd = i;
+            return Math.min(i + 1, length);
+        }
+        int i = from;
+        while (i < length && input.charAt(i) != ' ') {
+            if (input.charAt(i) == '\\' && i + 1 < length) {
+                readEscaped = true;
+                i++;
+            }
+            i++;
+        }
+        readStart = from;
+        readEnd = i;
+        return i;
+    }
+
+    private void addToken(int rawStart) {
+        if (tokenCount == tokenStarts.length) {
+            int size = tokenCount * 2;
+            tokenStarts = Arrays.copyOf(tokenStarts, size);
+            tokenEnds = Arrays.copyOf(tokenEnds, size);
+            tokenRawStarts = Arrays.copyOf(tokenRawStarts, size);
+            tokenEscaped = Arrays.copyOf(tokenEscaped, size);
+        }
+        tokenStarts[tokenCount] = readStart;
+        tokenEnds[tokenCount] = readEnd;
+        tokenRawStarts[tokenCount] = rawStart;
+        tokenEscaped[tokenCount] = readEscaped;
+        tokenCount++;
+    }
+
+    private void addFlag(int nameStart, int nameEnd, int valueStart, int valueEnd, boolean escaped) {
+        if (flagCount == flagNameStarts.length) {
+            int size = flagCount * 2;
+            flagNameStarts = Arrays.copyOf(flagNameStarts, size);
+            flagNameEnds = Arrays.copyOf(flagNameEnds, size);
+            flagValueStarts = Arrays.copyOf(flagValueStarts, size);
+            flagValueEnds = Arrays.copyOf(flagValueEnds, size);
+            flagEscaped = Arrays.copyOf(flagEscaped, size);
+        }
+        flagNameStarts[flagCount] = nameStart;
+        flagNameEnds[flagCount] = nameEnd;
+        flagValueStarts[flagCount] = valueStart;
+        flagValueEnds[flagCount] = valueEnd;
+        flagEscaped[flagCount] = escaped;
+        flagCount++;
+    }
+
+    /**
+     * Gets the number of positional tokens.
+     *
+     * @return The number of tokens, not counting flags.
+     * @since 3.1.0
+     */
+    public int size() {
+        return tokenCount;
+    }
+
+    /**
+     * Gets a positional token without copying it, unless it contains escape sequences.
+     *
+     * @param index The index of the token.
+     * @return A view of the token, or null if the index is out of bounds.
+     * @since 3.1.0
+     */
+    public CharSequence view(int index) {
+        if (index < 0 || index >= tokenCount) return null;
+        if (tokenEscaped[index]) return unescape(tokenStarts[index], tokenEnds[index]);
+        return new Slice(input, tokenStarts[index], tokenEnds[index]);
+    }
+
+    /**
+     * Gets a positional token as a String.
+     *
+     * @param index The index of the token.
+     * @return The token without quotes and escape characters, or null if the index is out of bounds.
+     * @since 3.1.0
+     */
+    public String get(int index) {
+        if (index < 0 || index >= tokenCount) return null;
+        if (tokenEscaped[index]) return unescape(tokenStarts[index], tokenEnds[index]);
+        return input.substring(tokenStarts[index], tokenEnds[index]);
+    }
+
+    /**
+     * Gets the input from a positional token to the end, as typed. Use this for greedy trailing arguments
+     * such as the message of a broadcast command.
+     *
+     * @param index The index of the first token.
+     * @return The rest of the input, or null if the index is out of bounds.
+     * @since 3.1.0
+     */
+    public String rest(int index) {
+        if (index < 0 || index >= tokenCount) return null;
+        return input.substring(tokenRawStarts[index]);
+    }
+
+    /**
+     * Checks if a flag was given, by its long name or its single character short name.
+     *
+     * @param name The name of the flag without dashes.
+     * @return true if the flag was given, false otherwise.
+     * @since 3.1.0
+     */
+    public boolean hasFlag(String name) {
+        return indexOfFlag(name) != NONE;
+    }
+
+    /**
+     * Gets the value of a flag given as {@code --name=value}.
+     *
+     * @param name The name of the flag without dashes.
+     * @return The value, or null if the flag was not given or has no value.
+     * @since 3.1.0
+     */
+    public String getFlag(String name) {
+        int index = indexOfFlag(name);
+        if (index == NONE || flagValueStarts[index] == NONE) return null;
+        if (flagEscaped[index]) return unescape(flagValueStarts[index], flagValueEnds[index]);
+        return input.substring(flagValueStarts[index], flagValueEnds[index]);
+    }
+
+    /**
+     * Gets the value of a flag given as {@code --name=value}.
+     *
+     * @param name         The name of the flag without dashes.
+     * @param defaultValue The value to return if the flag was not given or has no value.
+     * @return The value of the flag, or the default value.
+     * @since 3.1.0
+     */
+    public String getFlag(String name, String defaultValue) {
+        String value = getFlag(name);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * Gets the input the tokens were read from.
+     *
+     * @return The input.
+     * @since 3.1.0
+     */
+    public String getInput() {
+        return input;
+    }
+
+    private int indexOfFlag(String name) {
+        for (int i = flagCount - 1; i >= 0; i--) {
+            int length = flagNameEnds[i] - flagNameStarts[i];
+            if (length == name.length() && input.regionMatches(flagNameStarts[i], name, 0, length)) return i;
+        }
+        return NONE;
+    }
+
+    private String unescape(int start, int end) {
+        StringBuilder builder = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
+            if (c == '\\' && i + 1 < end) c = input.charAt(++i);
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * A read-only view of a range of the input.
+     */
+    private static final class Slice implements CharSequence {
+
+        private final String input;
+        private final int start;
+        private final int end;
+
+        private Slice(String input, int start, int end) {
+            this.input = input;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length()) throw new IndexOutOfBoundsException(index);
+            return input.charAt(start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            if (from < 0 || to > length() || from > to) throw new IndexOutOfBoundsException();
+            return new Slice(input, start + from, start + to);
+        }
+
+        @Override
+        public String toString() {
+            return input.substring(start, end);
+        }
+    }
+}
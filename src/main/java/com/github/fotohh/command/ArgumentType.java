@@ -0,0 +1,79 @@
+package com.github.fotohh.command;
+
+/**
+ * The ArgumentType enum describes the type of value an argument node of a {@link SubCommand} tree accepts.
+ * An argument node only matches the input token when the token can be parsed as its type.
+ *
+ * @since 3.1.0
+ */
+public enum ArgumentType {
+
+    /**
+     * Accepts any token.
+     */
+    STRING,
+    /**
+     * Accepts tokens that can be parsed as an int.
+     */
+    INTEGER,
+    /**
+     * Accepts tokens that can be parsed as a long.
+     */
+    LONG,
+    /**
+     * Accepts tokens that can be parsed as a float.
+     */
+    FLOAT,
+    /**
+     * Accepts tokens that can be parsed as a double.
+     */
+    DOUBLE,
+    /**
+     * Accepts "true" or "false" (ignoring case).
+     */
+    BOOLEAN,
+    /**
+     * Accepts the name of an online player.
+     */
+    PLAYER,
+    /**
+     * Accepts tokens that can be parsed as a UUID.
+     */
+    UUID,
+    /**
+     * Accepts the name of a material.
+     */
+    MATERIAL;
+
+    /**
+     * Checks whether the given token can be parsed as this type.
+     *
+     * @param token The token to check.
+     * @return true if the token is a valid value of this type, false otherwise.
+     * @since 3.1.0
+     */
+    public boolean matches(String token) {
+        if (token == null) return false;
+        switch (this) {
+            case STRING:
+                return true;
+            case INTEGER:
+                return ArgumentParser.isInt(token);
+            case LONG:
+                return ArgumentParser.isLong(token);
+            case FLOAT:
+            case DOUBLE:
+                return ArgumentParser.isDouble(token);
+            case BOOLEAN:
+                return "true".equalsIgnoreCase(token) || "false".equalsIgnoreCase(token);
+            case PLAYER:
+                return ArgumentParser.parsePlayer(token) != null;
+            case UUID:
+                return ArgumentParser.isUUID(token);
+            case MATERIAL:
+                return ArgumentParser.parseMaterial(token) != null;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.github.fotohh.command;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * The AsyncCommandExecutor class is a bounded worker pool for command bodies that should not run on the server main thread.
+ * Once every worker is busy and the queue is full, new tasks are rejected instead of piling up.
+ *
+ * @since 3.1.0
+ */
+public class AsyncCommandExecutor {
+
+    private static AsyncCommandExecutor defaultExecutor;
+
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Constructs a new AsyncCommandExecutor.
+     *
+     * @param name          The name prefix of the worker threads.
+     * @param threads       The number of worker threads.
+     * @param queueCapacity The number of tasks that may wait for a free worker.
+     * @since 3.1.0
+     */
+    public AsyncCommandExecutor(String name, int threads, int queueCapacity) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), factory, new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Gets the executor shared by every {@link CommandHandler} that has no executor of its own.
+     * It uses half of the available processors (at least two) and queues up to 256 tasks.
+     *
+     * @return The shared AsyncCommandExecutor instance.
+     * @since 3.1.0
+     */
+    public static synchronized AsyncCommandExecutor getDefault() {
+        if (defaultExecutor == null || defaultExecutor.executor.isShutdown()) {
+            int threads = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+            defaultExecutor = new AsyncCommandExecutor("GeneralSpigotHelper-Command", threads, 256);
+        }
+        return defaultExecutor;
+    }
+
+    /**
+     * Runs the task on a worker thread.
+     *
+     * @param task The task to run.
+     * @param <T>  The result type of the task.
+     * @return A future completed with the result of the task on the worker thread, or completed exceptionally
+     * with a {@link RejectedExecutionException} if the pool is saturated.
+     * @since 3.1.0
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Stops accepting new tasks. Tasks that were already submitted still run.
+     *
+     * @since 3.1.0
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -8,6 +8,7 @@ package com.github.fotohh.command;
 public class CommandArgument {
 
     private final String[] args;
+    private ArgumentTokens tokens;
 
     /**
      * Constructs a new CommandArgument instance with the given array of command arguments.
@@ -44,14 +45,25 @@ public class CommandArgument {
      */
     public int getInt(int index, int defaultValue) {
         if (index >= 0 && index < args.length) {
-            try {
-                return Integer.parseInt(args[index]);
-            } catch (NumberFormatException ignored) {
-            }
+            return ArgumentParser.parseInt(args[index], defaultValue);
         }
         return defaultValue;
     }
 
+    /**
+     * Gets the arguments split into quoted tokens and flags, e.g. {@code mail send "Some Player" --urgent Hello there}.
+     * The arguments are tokenized on the first call only.
+     *
+     * @return The ArgumentTokens of the arguments.
+     * @since 3.1.0
+     */
+    public ArgumentTokens tokens() {
+        if (tokens == null) {
+            tokens = ArgumentTokens.of(args);
+        }
+        return tokens;
+    }
+
     /**
      * Checks if the number of command arguments is equal to or greater than the specified length.
      *
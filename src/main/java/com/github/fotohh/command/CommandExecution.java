@@ -1,11 +1,22 @@
 package com.github.fotohh.command;
 
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The CommandExecution class represents the context of a command execution in a Bukkit/Spigot plugin.
  * It contains information about the sender, player (if applicable), command arguments, and usage message.
+ * <p>
+ * The values bound to parameters, such as {@link #getInt(String, int)}, are only valid while the consumer is running:
+ * once the command returns, its bound values are reused by the next command and reading them throws an
+ * {@link IllegalStateException}. To use them later, for example in a delayed task, keep the copy returned by
+ * {@link #detach()} instead.
  *
  * @since 1.0.4
  */
@@ -15,6 +26,12 @@ public class CommandExecution {
     private final String usageMessage;
     private final Player player;
     private final String[] args;
+    private final ParseContext context;
+    private final Plugin plugin;
+
+    private ArgumentParseError parseError;
+    private CommandArgument arguments;
+    private volatile boolean closed;
 
     /**
      * Constructs a new CommandExecution instance.
@@ -30,6 +47,63 @@ public class CommandExecution {
         this.player = player;
         this.args = args;
         this.usageMessage = usageMessage;
+        this.context = null;
+        this.plugin = null;
+    }
+
+    CommandExecution(CommandSender sender, Player player, String[] args, String usageMessage, ParseContext context, Plugin plugin) {
+        this.sender = sender;
+        this.player = player;
+        this.args = args;
+        this.usageMessage = usageMessage;
+        this.context = context;
+        this.plugin = plugin;
+    }
+
+    /**
+     * Creates a copy of this execution whose bound values stay valid after the command returns,
+     * so it can be kept for later or handed to another thread.
+     *
+     * @return The detached CommandExecution.
+     * @throws IllegalStateException if the command already returned.
+     * @since 3.1.0
+     */
+    public CommandExecution detach() {
+        checkOpen();
+        return new CommandExecution(sender, player, args, usageMessage, context != null ? context.copy() : null, plugin);
+    }
+
+    /**
+     * Called once the command returned, right before its bound values are released.
+     */
+    void close() {
+        closed = true;
+    }
+
+    /**
+     * Runs the given task on the server main thread.
+     * Use this from an asynchronous command body for anything that touches the Bukkit API.
+     * If this is already the main thread, the task runs immediately.
+     *
+     * @param task The task to run.
+     * @return A future completed once the task has run.
+     * @since 3.1.0
+     */
+    public CompletableFuture<Void> runSync(Runnable task) {
+        if (plugin == null || !plugin.isEnabled() || Bukkit.isPrimaryThread()) {
+            task.run();
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            try {
+                task.run();
+                future.complete(null);
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
     }
 
     /**
@@ -84,4 +158,194 @@ public class CommandExecution {
     public String[] getArgs() {
         return args;
     }
+
+    /**
+     * Gets the command arguments wrapped in a CommandArgument, for example to read quoted tokens and flags
+     * through {@link CommandArgument#tokens()}.
+     *
+     * @return The CommandArgument of this execution.
+     * @since 3.1.0
+     */
+    public CommandArgument getArguments() {
+        if (arguments == null) {
+            arguments = new CommandArgument(args);
+        }
+        return arguments;
+    }
+
+    /**
+     * Gets the value bound to an {@link ArgumentType#INTEGER} parameter.
+     *
+     * @param name         The name of the parameter.
+     * @param defaultValue The value to return if the parameter is not bound.
+     * @return The bound value, or the default value if the parameter is missing or not an integer.
+     * @throws IllegalStateException if the command already returned and this execution was not detached.
+     * @since 3.1.0
+     */
+    public int getInt(String name, int defaultValue) {
+        int index = indexOf(name);
+        if (index < 0 || context.getType(index) != ArgumentType.INTEGER) return defaultValue;
+        return (int) context.getLong(index);
+    }
+
+    /**
+     * Gets the value bound to an {@link ArgumentType#LONG} or {@link ArgumentType#INTEGER} parameter.
+     *
+     * @param name         The name of the parameter.
+     * @param defaultValue The value to return if the parameter is not bound.
+     * @return The bound value, or the default value if the parameter is missing or not integral.
+     * @since 3.1.0
+     */
+    public long getLong(String name, long defaultValue) {
+        int index = indexOf(name);
+        if (index < 0) return defaultValue;
+        ArgumentType type = context.getType(index);
+        return type == ArgumentType.LONG || type == ArgumentType.INTEGER ? context.getLong(index) : defaultValue;
+    }
+
+    /**
+     * Gets the value bound to a numeric parameter as a double.
+     *
+     * @param name         The name of the parameter.
+     * @param defaultValue The value to return if the parameter is not bound.
+     * @return The bound value, or the default value if the parameter is missing or not numeric.
+     * @since 3.1.0
+     */
+    public double getDouble(String name, double defaultValue) {
+        int index = indexOf(name);
+        if (index < 0) return defaultValue;
+        switch (context.getType(index)) {
+            case DOUBLE:
+            case FLOAT:
+                return context.getDouble(index);
+            case INTEGER:
+            case LONG:
+                return context.getLong(index);
+            default:
+                return defaultValue;
+        }
+    }
+
+    /**
+     * Gets the value bound to a {@link ArgumentType#FLOAT} or {@link ArgumentType#DOUBLE} parameter as a float.
+     *
+     * @param name         The name of the parameter.
+     * @param defaultValue The value to return if the parameter is not bound.
+     * @return The bound value, or the default value if the parameter is missing or not numeric.
+     * @since 3.1.0
+     */
+    public float getFloat(String name, float defaultValue) {
+        return (float) getDouble(name, defaultValue);
+    }
+
+    /**
+     * Gets the value bound to an {@link ArgumentType#BOOLEAN} parameter.
+     *
+     * @param name         The name of the parameter.
+     * @param defaultValue The value to return if the parameter is not bound.
+     * @return The bound value, or the default value if the parameter is missing or not a boolean.
+     * @since 3.1.0
+     */
+    public boolean getBoolean(String name, boolean defaultValue) {
+        int index = indexOf(name);
+        if (index < 0 || context.getType(index) != ArgumentType.BOOLEAN) return defaultValue;
+        return context.getLong(index) != 0L;
+    }
+
+    /**
+     * Gets the value bound to an {@link ArgumentType#STRING} parameter.
+     *
+     * @param name The name of the parameter.
+     * @return The bound value, or null if the parameter is missing or not a string.
+     * @since 3.1.0
+     */
+    public String getString(String name) {
+        return getObject(name, ArgumentType.STRING, String.class);
+    }
+
+    /**
+     * Gets the player bound to an {@link ArgumentType#PLAYER} parameter.
+     *
+     * @param name The name of the parameter.
+     * @return The bound player, or null if the parameter is missing or not a player.
+     * @since 3.1.0
+     */
+    public Player getPlayer(String name) {
+        return getObject(name, ArgumentType.PLAYER, Player.class);
+    }
+
+    /**
+     * Gets the value bound to an {@link ArgumentType#UUID} parameter.
+     *
+     * @param name The name of the parameter.
+     * @return The bound value, or null if the parameter is missing or not a UUID.
+     * @since 3.1.0
+     */
+    public UUID getUUID(String name) {
+        return getObject(name, ArgumentType.UUID, UUID.class);
+    }
+
+    /**
+     * Gets the value bound to an {@link ArgumentType#MATERIAL} parameter.
+     *
+     * @param name The name of the parameter.
+     * @return The bound value, or null if the parameter is missing or not a material.
+     * @since 3.1.0
+     */
+    public Material getMaterial(String name) {
+        return getObject(name, ArgumentType.MATERIAL, Material.class);
+    }
+
+    /**
+     * Checks if a parameter was bound.
+     *
+     * @param name The name of the parameter.
+     * @return true if a value is bound to the parameter, false otherwise.
+     * @since 3.1.0
+     */
+    public boolean isBound(String name) {
+        return indexOf(name) >= 0;
+    }
+
+    /**
+     * Checks if an argument could not be bound to its declared type.
+     *
+     * @return true if there is a parse error, false otherwise.
+     * @since 3.1.0
+     */
+    public boolean hasParseError() {
+        checkOpen();
+        return parseError != null || context != null && context.hasError();
+    }
+
+    /**
+     * Gets the argument that could not be bound to its declared type.
+     *
+     * @return The ArgumentParseError, or null if every argument was bound.
+     * @since 3.1.0
+     */
+    public ArgumentParseError getParseError() {
+        checkOpen();
+        if (parseError == null && context != null) {
+            parseError = context.createError();
+        }
+        return parseError;
+    }
+
+    private int indexOf(String name) {
+        checkOpen();
+        return context != null ? context.indexOf(name) : -1;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("The bound values of a command are released once it returns; use detach() to keep them.");
+        }
+    }
+
+    private <T> T getObject(String name, ArgumentType type, Class<T> clazz) {
+        int index = indexOf(name);
+        if (index < 0 || context.getType(index) != type) return null;
+        return clazz.cast(context.getObject(index));
+    }
 }
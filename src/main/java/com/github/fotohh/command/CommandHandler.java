@@ -1,16 +1,28 @@
 package com.github.fotohh.command;
 
 import com.github.fotohh.command.errors.*;
+import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
+import org.bukkit.command.PluginCommand;
+import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
 
 /**
  * The CommandHandler class is a custom command executor for Bukkit/Spigot plugins.
@@ -18,7 +30,7 @@ import java.util.function.Consumer;
  *
  * @since 1.0.4
  */
-public class CommandHandler implements CommandExecutor {
+public class CommandHandler implements CommandExecutor, TabCompleter {
 
     private final NotEnoughArguments argumentOptions;
     private final SenderOptions senderOptions;
@@ -26,6 +38,10 @@ public class CommandHandler implements CommandExecutor {
     private boolean permissionEnabled = false;
 
     private final List<CustomCommandError> customErrors = new ArrayList<>();
+    private final List<SubCommand> subCommands = new ArrayList<>();
+
+    private CommandTree commandTree;
+    private CommandParameter[] parameters = new CommandParameter[0];
 
     private String usage;
 
@@ -35,6 +51,21 @@ public class CommandHandler implements CommandExecutor {
     private String argsMessage;
 
     private Consumer<CommandExecution> consumer;
+    private Consumer<CommandExecution> parseErrorConsumer;
+
+    private final JavaPlugin plugin;
+    private AsyncCommandExecutor asyncExecutor;
+    private String busyMessage;
+
+    private CommandRateLimiter rateLimiter;
+    private String rateLimitMessage;
+    private String rateLimitBypassPermission;
+
+    private PermissionCache permissionCache;
+    private long permissionCacheAge;
+    private CommandPipeline pipeline;
+
+    private final CommandMetrics metrics;
 
     /**
      * Constructs a new CommandHandler instance for a specific command name.
@@ -51,7 +82,11 @@ public class CommandHandler implements CommandExecutor {
     public CommandHandler(String commandName, JavaPlugin plugin, SenderOptions senderOptions, NotEnoughArguments argumentOptions) {
         this.senderOptions = senderOptions;
         this.argumentOptions = argumentOptions;
-        plugin.getCommand(commandName).setExecutor(this);
+        this.plugin = plugin;
+        this.metrics = CommandMetrics.get(commandName);
+        PluginCommand pluginCommand = plugin.getCommand(commandName);
+        pluginCommand.setExecutor(this);
+        pluginCommand.setTabCompleter(this);
     }
 
     /**
@@ -67,7 +102,11 @@ public class CommandHandler implements CommandExecutor {
         this.senderOptions = senderOptions;
         this.argumentOptions = new NotEnoughArguments();
         argumentOptions.setArgumentLength(argsDefaultLength);
-        plugin.getCommand(commandName).setExecutor(this);
+        this.plugin = plugin;
+        this.metrics = CommandMetrics.get(commandName);
+        PluginCommand pluginCommand = plugin.getCommand(commandName);
+        pluginCommand.setExecutor(this);
+        pluginCommand.setTabCompleter(this);
     }
 
     /**
@@ -78,6 +117,55 @@ public class CommandHandler implements CommandExecutor {
      */
     public void registerCustomError(CustomCommandError customError) {
         customErrors.add(customError);
+        pipeline = null;
+    }
+
+    /**
+     * Registers sub-commands for this command.
+     * The registered trees are compiled into a prefix trie right away, so every invocation is dispatched
+     * to the deepest matching sub-command without walking a chain of string comparisons.
+     * If no sub-command matches, the consumer set by {@link #onExecute(Consumer)} is used instead.
+     *
+     * @param subCommands The sub-commands to register.
+     * @return The current CommandHandler instance.
+     * @throws IllegalArgumentException if two sub-commands on the same level share a name or alias.
+     * @since 3.1.0
+     */
+    public CommandHandler registerSubCommand(SubCommand... subCommands) {
+        List<SubCommand> merged = new ArrayList<>(this.subCommands);
+        merged.addAll(Arrays.asList(subCommands));
+        this.commandTree = new CommandTree(merged, this::getDefaultCompletions);
+        this.subCommands.clear();
+        this.subCommands.addAll(merged);
+        return this;
+    }
+
+    /**
+     * Declares the typed parameters of this command. The parameters are bound to the arguments by position
+     * before the consumer set by {@link #onExecute(Consumer)} runs, and can be read by name from the {@link CommandExecution}.
+     * Arguments that are missing are left unbound; arguments that cannot be parsed are reported through
+     * {@link CommandExecution#getParseError()}.
+     *
+     * @param parameters The parameters of the command in argument order.
+     * @return The current CommandHandler instance.
+     * @since 3.1.0
+     */
+    public CommandHandler setParameters(CommandParameter... parameters) {
+        this.parameters = parameters.clone();
+        return this;
+    }
+
+    /**
+     * Sets the consumer function to handle executions where an argument could not be bound to its declared type.
+     * If no consumer is set, the regular consumer runs and can check {@link CommandExecution#hasParseError()} itself.
+     *
+     * @param consumer The consumer function that accepts a CommandExecution instance with a parse error.
+     * @return The current CommandHandler instance.
+     * @since 3.1.0
+     */
+    public CommandHandler onParseError(Consumer<CommandExecution> consumer) {
+        this.parseErrorConsumer = consumer;
+        return this;
     }
 
     /**
@@ -88,6 +176,7 @@ public class CommandHandler implements CommandExecutor {
      */
     public CommandHandler setSenderMessage(String message) {
         this.senderMessage = message;
+        pipeline = null;
         return this;
     }
 
@@ -99,6 +188,7 @@ public class CommandHandler implements CommandExecutor {
      */
     public CommandHandler setIncorrectSenderMessage(String message) {
         this.senderMessage = message;
+        pipeline = null;
         return this;
     }
 
@@ -110,6 +200,7 @@ public class CommandHandler implements CommandExecutor {
      */
     public CommandHandler setNotEnoughArgsMessage(String message) {
         this.argsMessage = message;
+        pipeline = null;
         return this;
     }
 
@@ -137,6 +228,28 @@ public class CommandHandler implements CommandExecutor {
         this.permissionMessage = message;
         this.permission = permission;
         permissionEnabled = true;
+        pipeline = null;
+        return this;
+    }
+
+    /**
+     * Caches the permission checks of this command per player in the shared {@link PermissionCache},
+     * so the permission plugin is asked at most once per player within the given time.
+     * Cached results are discarded when the player quits or changes worlds, or when
+     * {@link PermissionCache#invalidate(Player)} is called.
+     *
+     * @param duration How long a permission check result may be reused.
+     * @param unit     The unit of the duration.
+     * @return The current CommandHandler instance.
+     * @since 3.1.0
+     */
+    public CommandHandler cachePermissions(long duration, TimeUnit unit) {
+        if (duration < 0) {
+            throw new IllegalArgumentException("The cache duration cannot be negative.");
+        }
+        this.permissionCache = PermissionCache.get(plugin);
+        this.permissionCacheAge = unit.toNanos(duration);
+        pipeline = null;
         return this;
     }
 
@@ -151,40 +264,350 @@ public class CommandHandler implements CommandExecutor {
     }
 
     /**
-     * Don't attempt to override this.
+     * Suggests completions from the registered sub-commands or parameters.
+     * Commands without either complete online player names, like Bukkit does, but from a pre-sorted index.
      */
     @Override
-    public boolean onCommand(@NotNull CommandSender sender, @NotNull Command command, @NotNull String label, @NotNull String[] args) {
+    public List<String> onTabComplete(@NotNull CommandSender sender, @NotNull Command command, @NotNull String label, @NotNull String[] args) {
+        if (args.length == 0) return Collections.emptyList();
+        if (permissionEnabled && sender instanceof Player && !hasPermission((Player) sender, permission)) {
+            return Collections.emptyList();
+        }
+        // Bukkit hands the list to TabCompleteEvent listeners, which may modify it, so the indexed view is copied once here.
+        return new ArrayList<>(complete(sender, args));
+    }
+
+    private List<String> complete(CommandSender sender, String[] args) {
+        if (commandTree != null) {
+            return commandTree.complete(sender, args);
+        }
+        String prefix = args[args.length - 1];
+        if (parameters.length == 0) {
+            return OnlinePlayerCompletions.get(plugin).complete(sender, prefix);
+        }
+        if (args.length > parameters.length) return Collections.emptyList();
+        CommandParameter parameter = parameters[args.length - 1];
+        CompletionSource completions = parameter.getCompletions() != null ? parameter.getCompletions() : getDefaultCompletions(parameter.getType());
+        return completions.complete(sender, prefix);
+    }
+
+    /**
+     * Compiles the configured checks into a pipeline. The rate limit runs first because it has to count every
+     * invocation, and the custom errors run last because they may send their own messages.
+     */
+    private CommandPipeline compilePipeline() {
+        CommandPipeline.Stage rateLimit = null;
+        if (rateLimiter != null) {
+            CommandRateLimiter limiter = rateLimiter;
+            String bypass = rateLimitBypassPermission;
+            rateLimit = new CommandPipeline.Stage(rateLimitMessage, CommandMetrics.RejectionReason.RATE_LIMIT) {
+                @Override
+                boolean accept(CommandSender sender, Command command, String label, String[] args) {
+                    if (!(sender instanceof Player)) return true;
+                    Player player = (Player) sender;
+                    return limiter.tryAcquire(player.getUniqueId()) || bypass != null && hasPermission(player, bypass);
+                }
+            };
+        }
+
+        List<CommandPipeline.Stage> checks = new ArrayList<>();
+        if (permissionEnabled) {
+            String permission = this.permission;
+            checks.add(new CommandPipeline.Stage(permissionMessage, CommandMetrics.RejectionReason.PERMISSION) {
+                @Override
+                boolean accept(CommandSender sender, Command command, String label, String[] args) {
+                    return !(sender instanceof Player) || hasPermission((Player) sender, permission);
+                }
+            });
+        }
+        if (senderOptions != null && !(senderOptions instanceof SenderAndConsole)) {
+            SenderOptions options = senderOptions;
+            checks.add(new CommandPipeline.Stage(senderMessage, CommandMetrics.RejectionReason.SENDER) {
+                @Override
+                boolean accept(CommandSender sender, Command command, String label, String[] args) {
+                    return options.isValid(sender);
+                }
+            });
+        }
+        if (argumentOptions != null) {
+            NotEnoughArguments options = argumentOptions;
+            checks.add(new CommandPipeline.Stage(argsMessage, CommandMetrics.RejectionReason.ARGUMENTS) {
+                @Override
+                boolean accept(CommandSender sender, Command command, String label, String[] args) {
+                    return args != null && args.length >= options.getArgumentLength();
+                }
+            });
+        }
+
+        CommandPipeline.Stage custom = null;
+        if (!customErrors.isEmpty()) {
+            CustomCommandError[] errors = customErrors.toArray(new CustomCommandError[0]);
+            custom = new CommandPipeline.Stage(null, CommandMetrics.RejectionReason.CUSTOM_ERROR) {
+                @Override
+                boolean accept(CommandSender sender, Command command, String label, String[] args) {
+                    for (CustomCommandError error : errors) {
+                        if (error.handle(sender, command, label, args)) return false;
+                    }
+                    return true;
+                }
+            };
+        }
+        return new CommandPipeline(rateLimit, checks, custom, metrics);
+    }
 
-        CommandArgument cmdArgs = new CommandArgument(args);
+    private boolean hasPermission(Player player, String permission) {
+        if (permissionCache == null) return player.hasPermission(permission);
+        return permissionCache.hasPermission(player, permission, permissionCacheAge);
+    }
 
-        if (permissionEnabled && sender instanceof Player) {
-            if (!sender.hasPermission(permission)) {
-                sender.sendMessage(permissionMessage);
-                return true;
+    private void bindParameters(String[] args, ParseContext context) {
+        context.clear();
+        int length = Math.min(parameters.length, args.length);
+        for (int i = 0; i < length; i++) {
+            CommandParameter parameter = parameters[i];
+            if (!context.bind(parameter.getName(), parameter.getType(), args[i])) {
+                context.fail(i, parameter.getName(), parameter.getType(), args[i]);
             }
         }
+    }
+
+    /**
+     * Limits how often a player may use this command. Each player gets a bucket of {@code permits} invocations
+     * that refills completely over {@code period}. Excess invocations are rejected before any other check runs.
+     * The console and other non-player senders are never limited.
+     *
+     * @param permits The number of invocations a player may make in a burst.
+     * @param period  The time it takes for an empty bucket to refill completely.
+     * @param unit    The unit of the period.
+     * @param message The message to be sent to the player when an invocation is rejected, or null to reject silently.
+     * @return The current CommandHandler instance.
+     * @since 3.1.0
+     */
+    public CommandHandler setRateLimit(int permits, long period, TimeUnit unit, String message) {
+        this.rateLimiter = new CommandRateLimiter(permits, period, unit);
+        this.rateLimitMessage = message;
+        pipeline = null;
+        return this;
+    }
+
+    /**
+     * Sets a cooldown between two invocations of this command by the same player.
+     * This is a shortcut for {@code setRateLimit(1, duration, unit, message)}.
+     *
+     * @param duration The length of the cooldown.
+     * @param unit     The unit of the duration.
+     * @param message  The message to be sent to the player while the cooldown is running, or null to reject silently.
+     * @return The current CommandHandler instance.
+     * @since 3.1.0
+     */
+    public CommandHandler setCooldown(long duration, TimeUnit unit, String message) {
+        return setRateLimit(1, duration, unit, message);
+    }
+
+    /**
+     * Sets the permission that exempts a player from the rate limit of this command.
+     * The permission is only checked once the player's bucket is empty.
+     *
+     * @param permission The bypass permission.
+     * @return The current CommandHandler instance.
+     * @since 3.1.0
+     */
+    public CommandHandler setRateLimitBypassPermission(String permission) {
+        this.rateLimitBypassPermission = permission;
+        pipeline = null;
+        return this;
+    }
+
+    /**
+     * Gets the metrics of this command.
+     *
+     * @return The CommandMetrics registered under the name of this command.
+     * @since 3.1.0
+     */
+    public CommandMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Gets the rate limiter of this command.
+     *
+     * @return The CommandRateLimiter, or null if no rate limit is set.
+     * @since 3.1.0
+     */
+    public CommandRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * Sets the worker pool used by the asynchronous execution methods of this handler.
+     * If no executor is set, {@link AsyncCommandExecutor#getDefault()} is used.
+     *
+     * @param executor The AsyncCommandExecutor to run command bodies on.
+     * @return The current CommandHandler instance.
+     * @since 3.1.0
+     */
+    public CommandHandler setAsyncExecutor(AsyncCommandExecutor executor) {
+        this.asyncExecutor = executor;
+        return this;
+    }
+
+    /**
+     * Sets the message to be sent to the sender when an asynchronous command is rejected because the worker pool is saturated.
+     *
+     * @param message The message to be sent to the sender.
+     * @return The current CommandHandler instance.
+     * @since 3.1.0
+     */
+    public CommandHandler setBusyMessage(String message) {
+        this.busyMessage = message;
+        return this;
+    }
+
+    /**
+     * Runs the task on the asynchronous worker pool and completes the returned future on the server main thread.
+     * Stages attached to the future with the non-async {@code then*} methods therefore run on the main thread
+     * and may use the Bukkit API.
+     *
+     * @param execution The execution to hand to the task. Its bound arguments are copied, so they stay valid on the worker thread.
+     * @param task      The task to run off the main thread. It must not touch the Bukkit API.
+     * @param <T>       The result type of the task.
+     * @return A future completed on the main thread with the result of the task.
+     * @since 3.1.0
+     */
+    public <T> CompletableFuture<T> supplyAsync(CommandExecution execution, Function<CommandExecution, T> task) {
+        return submitDetached(execution.detach(), task);
+    }
 
-        if (senderOptions != null) {
-            if (!senderOptions.isValid(sender)) {
-                sender.sendMessage(senderMessage);
-                return true;
+    private <T> CompletableFuture<T> submitDetached(CommandExecution detached, Function<CommandExecution, T> task) {
+        AsyncCommandExecutor executor = asyncExecutor != null ? asyncExecutor : AsyncCommandExecutor.getDefault();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        executor.submit(() -> task.apply(detached)).whenComplete((value, error) -> runOnMainThread(() -> {
+            if (error != null) {
+                result.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            } else {
+                result.complete(value);
             }
+        }));
+        return result;
+    }
+
+    /**
+     * Creates a consumer function that runs the task on the asynchronous worker pool and hands its result to the completion on the main thread.
+     * The returned consumer can be passed to {@link #onExecute(Consumer)} or {@link SubCommand#onExecute(Consumer)}.
+     * The task and the completion receive the same detached copy of the execution, so arguments read in the completion
+     * are the ones the task saw.
+     * Errors thrown by the task are logged; if the worker pool is saturated the busy message is sent instead.
+     *
+     * @param task       The task to run off the main thread. It must not touch the Bukkit API.
+     * @param completion The consumer function that receives the result of the task on the main thread.
+     * @param <T>        The result type of the task.
+     * @return The consumer function that accepts a CommandExecution instance.
+     * @since 3.1.0
+     */
+    public <T> Consumer<CommandExecution> async(Function<CommandExecution, T> task, BiConsumer<CommandExecution, T> completion) {
+        return execution -> {
+            CommandExecution detached = execution.detach();
+            submitDetached(detached, task).whenComplete((value, error) -> {
+                if (error == null) {
+                    if (completion != null) completion.accept(detached, value);
+                } else if (error instanceof RejectedExecutionException) {
+                    if (busyMessage != null) detached.getSender().sendMessage(busyMessage);
+                } else {
+                    plugin.getLogger().log(Level.SEVERE, "An exception occurred while executing a command asynchronously", error);
+                }
+            });
+        };
+    }
+
+    /**
+     * Sets the consumer function to handle command execution off the main thread.
+     * This is a shortcut for {@code onExecute(async(task, completion))}.
+     *
+     * @param task       The task to run off the main thread. It must not touch the Bukkit API.
+     * @param completion The consumer function that receives the result of the task on the main thread.
+     * @param <T>        The result type of the task.
+     * @since 3.1.0
+     */
+    public <T> void onExecuteAsync(Function<CommandExecution, T> task, BiConsumer<CommandExecution, T> completion) {
+        onExecute(async(task, completion));
+    }
+
+    /**
+     * Gets the tab-completion suggestions used for arguments of the given type that do not declare their own.
+     * Players are completed from {@link OnlinePlayerCompletions}, materials and booleans from a shared {@link CompletionIndex}.
+     *
+     * @param type The type of the argument.
+     * @return The default CompletionSource of the type.
+     * @since 3.1.0
+     */
+    public CompletionSource getDefaultCompletions(ArgumentType type) {
+        switch (type) {
+            case PLAYER:
+                return OnlinePlayerCompletions.get(plugin);
+            case MATERIAL:
+                return CompletionIndex.materials();
+            case BOOLEAN:
+                return CompletionIndex.booleans();
+            default:
+                return CompletionIndex.empty();
         }
+    }
 
-        if (argumentOptions != null && !cmdArgs.hasEnoughArguments(argumentOptions.getArgumentLength()) || argumentOptions != null && args == null) {
-            sender.sendMessage(argsMessage);
-            return true;
+    private void runOnMainThread(Runnable runnable) {
+        if (!plugin.isEnabled() || Bukkit.isPrimaryThread()) {
+            runnable.run();
+        } else {
+            Bukkit.getScheduler().runTask(plugin, runnable);
         }
+    }
 
-        if (!customErrors.isEmpty()) {
-            for (CustomCommandError customError : customErrors) {
-                if (customError.handle(sender, command, label, args)) return true;
-            }
+    /**
+     * Don't attempt to override this.
+     */
+    @Override
+    public boolean onCommand(@NotNull CommandSender sender, @NotNull Command command, @NotNull String label, @NotNull String[] args) {
+
+        metrics.recordInvocation();
+        CommandPipeline pipeline = this.pipeline;
+        if (pipeline == null) {
+            pipeline = this.pipeline = compilePipeline();
         }
+        if (!pipeline.accept(sender, command, label, args)) return true;
+
+        ParseContext context = ParseContext.acquire();
+        try {
+            Consumer<CommandExecution> target = null;
+            if (commandTree != null) {
+                CommandTree.Node node = commandTree.dispatch(args, context);
+                if (node != null) {
+                    target = node.getConsumer();
+                }
+            }
+            if (target == null) {
+                target = consumer;
+                if (parameters.length > 0) {
+                    bindParameters(args, context);
+                }
+            }
+            if (context.hasError()) {
+                metrics.recordParseError();
+                if (parseErrorConsumer != null) target = parseErrorConsumer;
+            }
 
-        if (consumer != null) {
-            consumer.accept(new CommandExecution(sender, (Player) sender, args, usage));
+            if (target != null) {
+                CommandExecution execution = new CommandExecution(sender, sender instanceof Player ? (Player) sender : null, args, usage, context, plugin);
+                long start = System.nanoTime();
+                try {
+                    target.accept(execution);
+                } finally {
+                    metrics.recordExecution(System.nanoTime() - start);
+                    execution.close();
+                }
+            } else if (commandTree != null && usage != null) {
+                sender.sendMessage(usage);
+            }
+        } finally {
+            context.release();
         }
         return true;
     }
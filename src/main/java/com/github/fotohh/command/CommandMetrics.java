@@ -0,0 +1,238 @@
+package com.github.fotohh.command;
+
+import org.bukkit.ChatColor;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The CommandMetrics class counts the invocations and rejections of a command and records how long its
+ * consumer runs on the calling thread. Every {@link CommandHandler} registers its metrics under its command name,
+ * so they can be queried with {@link #get(String)} or listed with the command created by
+ * {@link #createDumpCommand(JavaPlugin, String, String)}.
+ * <p>
+ * Consumers that run asynchronously are only measured up to the point where they hand their work off.
+ *
+ * @since 3.1.0
+ */
+public final class CommandMetrics {
+
+    private static final Map<String, CommandMetrics> REGISTRY = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder parseErrors = new LongAdder();
+    private final LongAdder[] rejections = new LongAdder[RejectionReason.values().length];
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    private CommandMetrics(String name) {
+        this.name = name;
+        for (int i = 0; i < rejections.length; i++) {
+            rejections[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Gets the metrics of a command, creating them if they do not exist yet.
+     *
+     * @param name The name of the command.
+     * @return The CommandMetrics of the command.
+     * @since 3.1.0
+     */
+    public static CommandMetrics get(String name) {
+        return REGISTRY.computeIfAbsent(name.toLowerCase(Locale.ROOT), CommandMetrics::new);
+    }
+
+    /**
+     * Gets the metrics of every command.
+     *
+     * @return An unmodifiable view of the registered metrics.
+     * @since 3.1.0
+     */
+    public static Collection<CommandMetrics> getAll() {
+        return Collections.unmodifiableCollection(REGISTRY.values());
+    }
+
+    /**
+     * Creates a command that lists the metrics of every command, sorted by their total time spent.
+     * {@code /<command> reset} discards the recorded metrics.
+     *
+     * @param plugin      The JavaPlugin instance.
+     * @param commandName The name of the command as declared in the plugin.yml.
+     * @param permission  The permission required to use the command.
+     * @return The CommandHandler of the dump command.
+     * @since 3.1.0
+     */
+    public static CommandHandler createDumpCommand(JavaPlugin plugin, String commandName, String permission) {
+        CommandHandler handler = new CommandHandler(commandName, plugin, null, 0)
+                .setNoPermissionMessage(ChatColor.RED + "You do not have permission to view command metrics.", permission);
+        handler.onExecute(execution -> execution.getSender().sendMessage(report().toArray(new String[0])));
+        handler.registerSubCommand(SubCommand.literal("reset").onExecute(execution -> {
+            REGISTRY.values().forEach(CommandMetrics::reset);
+            execution.getSender().sendMessage(ChatColor.GREEN + "Command metrics reset.");
+        }));
+        return handler;
+    }
+
+    /**
+     * Formats the metrics of every command, the commands with the most total time spent first.
+     *
+     * @return One line per command, preceded by a header line.
+     * @since 3.1.0
+     */
+    public static List<String> report() {
+        List<CommandMetrics> sorted = new ArrayList<>(REGISTRY.values());
+        sorted.sort((first, second) -> Double.compare(second.getTotalTime(), first.getTotalTime()));
+        List<String> lines = new ArrayList<>();
+        lines.add(ChatColor.GOLD + "Command metrics (ms): calls / p50 / p99 / max / rejections");
+        for (CommandMetrics metrics : sorted) {
+            lines.add(metrics.toString());
+        }
+        return lines;
+    }
+
+    /**
+     * Gets the name of the command.
+     *
+     * @return The lower case command name.
+     * @since 3.1.0
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the number of times the command was invoked, including rejected invocations.
+     *
+     * @return The invocation count.
+     * @since 3.1.0
+     */
+    public long getInvocations() {
+        return invocations.sum();
+    }
+
+    /**
+     * Gets the number of invocations rejected for the given reason.
+     *
+     * @param reason The reason of the rejection.
+     * @return The rejection count.
+     * @since 3.1.0
+     */
+    public long getRejections(RejectionReason reason) {
+        return rejections[reason.ordinal()].sum();
+    }
+
+    /**
+     * Gets the number of invocations rejected for each reason.
+     *
+     * @return The rejection counts by reason.
+     * @since 3.1.0
+     */
+    public Map<RejectionReason, Long> getRejections() {
+        Map<RejectionReason, Long> counts = new EnumMap<>(RejectionReason.class);
+        for (RejectionReason reason : RejectionReason.values()) {
+            counts.put(reason, getRejections(reason));
+        }
+        return counts;
+    }
+
+    /**
+     * Gets the number of executions where an argument could not be bound to its declared type.
+     *
+     * @return The parse error count.
+     * @since 3.1.0
+     */
+    public long getParseErrors() {
+        return parseErrors.sum();
+    }
+
+    /**
+     * Gets the histogram of the time the consumers of the command took.
+     *
+     * @return The LatencyHistogram of the executions.
+     * @since 3.1.0
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Discards the recorded metrics.
+     *
+     * @since 3.1.0
+     */
+    public void reset() {
+        invocations.reset();
+        parseErrors.reset();
+        for (LongAdder rejection : rejections) {
+            rejection.reset();
+        }
+        latency.reset();
+    }
+
+    void recordInvocation() {
+        invocations.increment();
+    }
+
+    void recordRejection(RejectionReason reason) {
+        rejections[reason.ordinal()].increment();
+    }
+
+    void recordParseError() {
+        parseErrors.increment();
+    }
+
+    void recordExecution(long nanos) {
+        latency.record(nanos);
+    }
+
+    private double getTotalTime() {
+        return latency.getMean(TimeUnit.MILLISECONDS) * latency.getCount();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(ChatColor.YELLOW).append('/').append(name).append(ChatColor.GRAY).append(": ")
+                .append(getInvocations()).append(" / ")
+                .append(format(latency.getValueAtPercentile(50, TimeUnit.MILLISECONDS))).append(" / ")
+                .append(format(latency.getValueAtPercentile(99, TimeUnit.MILLISECONDS))).append(" / ")
+                .append(format(latency.getMax(TimeUnit.MILLISECONDS))).append(" /");
+        boolean rejected = false;
+        for (RejectionReason reason : RejectionReason.values()) {
+            long count = getRejections(reason);
+            if (count > 0) {
+                builder.append(' ').append(reason.name().toLowerCase(Locale.ROOT)).append('=').append(count);
+                rejected = true;
+            }
+        }
+        if (!rejected) builder.append(" none");
+        return builder.toString();
+    }
+
+    private static String format(double millis) {
+        return String.format(Locale.ROOT, "%.2f", millis);
+    }
+
+    /**
+     * The checks of a {@link CommandHandler} that can reject an invocation.
+     *
+     * @since 3.1.0
+     */
+    public enum RejectionReason {
+        RATE_LIMIT,
+        PERMISSION,
+        SENDER,
+        ARGUMENTS,
+        CUSTOM_ERROR
+    }
+}
@@ -0,0 +1,79 @@
+package com.github.fotohh.command;
+
+/**
+ * The CommandParameter class declares a named, typed parameter of a command.
+ * Parameters registered with {@link CommandHandler#setParameters(CommandParameter...)} are bound to the
+ * command arguments by position and can be read by name from the {@link CommandExecution}.
+ *
+ * @since 3.1.0
+ */
+public final class CommandParameter {
+
+    private final String name;
+    private final ArgumentType type;
+    private final CompletionSource completions;
+
+    private CommandParameter(String name, ArgumentType type, CompletionSource completions) {
+        this.name = name;
+        this.type = type;
+        this.completions = completions;
+    }
+
+    /**
+     * Creates a new CommandParameter.
+     *
+     * @param name The name used to read the bound value from the CommandExecution.
+     * @param type The type the argument must have.
+     * @return The new CommandParameter instance.
+     * @since 3.1.0
+     */
+    public static CommandParameter of(String name, ArgumentType type) {
+        return of(name, type, null);
+    }
+
+    /**
+     * Creates a new CommandParameter with custom tab-completion suggestions.
+     *
+     * @param name        The name used to read the bound value from the CommandExecution.
+     * @param type        The type the argument must have.
+     * @param completions The source of suggestions, or null to use the defaults of the type.
+     * @return The new CommandParameter instance.
+     * @since 3.1.0
+     */
+    public static CommandParameter of(String name, ArgumentType type, CompletionSource completions) {
+        if (name == null || type == null) {
+            throw new IllegalArgumentException("A parameter needs a name and a type.");
+        }
+        return new CommandParameter(name, type, completions);
+    }
+
+    /**
+     * Gets the name of this parameter.
+     *
+     * @return The parameter name.
+     * @since 3.1.0
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the type of this parameter.
+     *
+     * @return The ArgumentType of this parameter.
+     * @since 3.1.0
+     */
+    public ArgumentType getType() {
+        return type;
+    }
+
+    /**
+     * Gets the tab-completion suggestions of this parameter.
+     *
+     * @return The CompletionSource, or null if the defaults of the type are used.
+     * @since 3.1.0
+     */
+    public CompletionSource getCompletions() {
+        return completions;
+    }
+}
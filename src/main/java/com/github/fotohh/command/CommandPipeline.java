@@ -0,0 +1,105 @@
+package com.github.fotohh.command;
+
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The CommandPipeline class is the compiled chain of checks a command runs before its consumer.
+ * Only the checks that are configured are part of the pipeline. The first and last stages keep their place,
+ * while the stages in between are reordered every {@link #REORDER_INTERVAL} invocations so that the stage
+ * rejecting most often runs first. Commands are dispatched on the main thread, so the counters are plain fields.
+ */
+final class CommandPipeline {
+
+    static final int REORDER_INTERVAL = 256;
+
+    private static final Comparator<Stage> BY_REJECTIONS = Comparator.comparingLong((Stage stage) -> stage.rejections).reversed();
+
+    private final Stage[] stages;
+    private final CommandMetrics metrics;
+    private final int reorderFrom;
+    private final int reorderTo;
+
+    private int invocations;
+
+    /**
+     * Compiles the given stages into a pipeline.
+     *
+     * @param first   The stage that always runs first, or null.
+     * @param middle  The stages that may be reordered.
+     * @param last    The stage that always runs last, or null.
+     * @param metrics The metrics to record rejections in.
+     */
+    CommandPipeline(Stage first, List<Stage> middle, Stage last, CommandMetrics metrics) {
+        Stage[] stages = new Stage[middle.size() + (first != null ? 1 : 0) + (last != null ? 1 : 0)];
+        int index = 0;
+        if (first != null) stages[index++] = first;
+        this.reorderFrom = index;
+        for (Stage stage : middle) {
+            stages[index++] = stage;
+        }
+        this.reorderTo = index;
+        if (last != null) stages[index] = last;
+        this.stages = stages;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Runs the stages until one rejects the invocation.
+     *
+     * @return true if every stage accepted the invocation, false if one rejected it.
+     */
+    boolean accept(CommandSender sender, Command command, String label, String[] args) {
+        if (reorderTo - reorderFrom > 1 && ++invocations >= REORDER_INTERVAL) {
+            reorder();
+        }
+        for (Stage stage : stages) {
+            if (!stage.accept(sender, command, label, args)) {
+                stage.rejections++;
+                metrics.recordRejection(stage.reason);
+                if (stage.message != null) sender.sendMessage(stage.message);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void reorder() {
+        invocations = 0;
+        Arrays.sort(stages, reorderFrom, reorderTo, BY_REJECTIONS);
+        // Halve the counts so the order follows recent traffic rather than the whole uptime.
+        for (int i = reorderFrom; i < reorderTo; i++) {
+            stages[i].rejections >>= 1;
+        }
+    }
+
+    /**
+     * One check of the pipeline.
+     */
+    abstract static class Stage {
+
+        private final String message;
+        private final CommandMetrics.RejectionReason reason;
+        private long rejections;
+
+        /**
+         * @param message The message sent to the sender when this stage rejects an invocation, or null.
+         * @param reason  The reason recorded in the metrics when this stage rejects an invocation.
+         */
+        Stage(String message, CommandMetrics.RejectionReason reason) {
+            this.message = message;
+            this.reason = reason;
+        }
+
+        /**
+         * Checks an invocation.
+         *
+         * @return true if the invocation may continue, false otherwise.
+         */
+        abstract boolean accept(CommandSender sender, Command command, String label, String[] args);
+    }
+}
@@ -0,0 +1,151 @@
+package com.github.fotohh.command;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The CommandRateLimiter class is a token bucket per sender UUID.
+ * Each bucket holds up to {@code permits} tokens and refills one token every {@code period / permits}.
+ * <p>
+ * A bucket is stored as a single "theoretical arrival time" (the time at which it will be full again) in an
+ * open-addressing table of primitive arrays, so checking a sender neither boxes nor allocates. Buckets that have
+ * refilled completely carry no information and are dropped lazily the next time the table needs room.
+ *
+ * @since 3.1.0
+ */
+public class CommandRateLimiter {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final long interval;
+    private final long burstTolerance;
+
+    private long[] mostSignificant = new long[INITIAL_CAPACITY];
+    private long[] leastSignificant = new long[INITIAL_CAPACITY];
+    private long[] arrivalTimes = new long[INITIAL_CAPACITY];
+    private boolean[] used = new boolean[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Constructs a new CommandRateLimiter.
+     *
+     * @param permits The number of invocations a sender may make in a burst.
+     * @param period  The time it takes for an empty bucket to refill completely.
+     * @param unit    The unit of the period.
+     * @since 3.1.0
+     */
+    public CommandRateLimiter(int permits, long period, TimeUnit unit) {
+        if (permits < 1 || period <= 0) {
+            throw new IllegalArgumentException("A rate limit needs at least one permit and a positive period.");
+        }
+        this.interval = Math.max(1L, unit.toNanos(period) / permits);
+        this.burstTolerance = interval * (permits - 1);
+    }
+
+    /**
+     * Takes a token from the bucket of the given sender.
+     *
+     * @param uuid The UUID of the sender.
+     * @return true if a token was available, false if the sender is rate limited.
+     * @since 3.1.0
+     */
+    public boolean tryAcquire(UUID uuid) {
+        return tryAcquire(uuid, System.nanoTime()) == 0L;
+    }
+
+    /**
+     * Takes a token from the bucket of the given sender.
+     *
+     * @param uuid The UUID of the sender.
+     * @param now  The current time as returned by {@link System#nanoTime()}.
+     * @return 0 if a token was available, otherwise the number of nanoseconds until the next token is available.
+     * @since 3.1.0
+     */
+    public synchronized long tryAcquire(UUID uuid, long now) {
+        long most = uuid.getMostSignificantBits();
+        long least = uuid.getLeastSignificantBits();
+        int slot = find(most, least);
+        long arrival = slot >= 0 ? Math.max(arrivalTimes[slot], now) : now;
+        long wait = arrival - burstTolerance - now;
+        if (wait > 0) return wait;
+        if (slot < 0) {
+            slot = insert(most, least, now);
+        }
+        arrivalTimes[slot] = arrival + interval;
+        return 0L;
+    }
+
+    /**
+     * Resets the bucket of the given sender so it is full again.
+     *
+     * @param uuid The UUID of the sender.
+     * @since 3.1.0
+     */
+    public synchronized void reset(UUID uuid) {
+        int slot = find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        if (slot >= 0) arrivalTimes[slot] = System.nanoTime();
+    }
+
+    private int find(long most, long least) {
+        int mask = used.length - 1;
+        for (int slot = hash(most, least) & mask; used[slot]; slot = (slot + 1) & mask) {
+            if (mostSignificant[slot] == most && leastSignificant[slot] == least) return slot;
+        }
+        return -1;
+    }
+
+    private int insert(long most, long least, long now) {
+        int mask = used.length - 1;
+        int slot = hash(most, least) & mask;
+        while (used[slot]) {
+            // A bucket that has refilled completely can be overwritten in place.
+            if (arrivalTimes[slot] - now <= 0) break;
+            slot = (slot + 1) & mask;
+        }
+        if (!used[slot]) {
+            if ((size + 1) * 4 > used.length * 3) {
+                rehash(now);
+                return insert(most, least, now);
+            }
+            used[slot] = true;
+            size++;
+        }
+        mostSignificant[slot] = most;
+        leastSignificant[slot] = least;
+        return slot;
+    }
+
+    private void rehash(long now) {
+        long[] oldMost = mostSignificant;
+        long[] oldLeast = leastSignificant;
+        long[] oldArrival = arrivalTimes;
+        boolean[] oldUsed = used;
+        int live = 0;
+        for (int i = 0; i < oldUsed.length; i++) {
+            if (oldUsed[i] && oldArrival[i] - now > 0) live++;
+        }
+        int capacity = INITIAL_CAPACITY;
+        while (live * 2 > capacity) capacity <<= 1;
+        mostSignificant = new long[capacity];
+        leastSignificant = new long[capacity];
+        arrivalTimes = new long[capacity];
+        used = new boolean[capacity];
+        size = 0;
+        int mask = capacity - 1;
+        for (int i = 0; i < oldUsed.length; i++) {
+            if (!oldUsed[i] || oldArrival[i] - now <= 0) continue;
+            int slot = hash(oldMost[i], oldLeast[i]) & mask;
+            while (used[slot]) slot = (slot + 1) & mask;
+            used[slot] = true;
+            mostSignificant[slot] = oldMost[i];
+            leastSignificant[slot] = oldLeast[i];
+            arrivalTimes[slot] = oldArrival[i];
+            size++;
+        }
+    }
+
+    private static int hash(long most, long least) {
+        long hash = (most ^ least) * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
@@ -0,0 +1,188 @@
+package com.github.fotohh.command;
+
+import org.bukkit.command.CommandSender;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * The compiled form of the {@link SubCommand} trees registered on a {@link CommandHandler}.
+ * Literal children of every node are stored in a {@link LiteralTrie}, so dispatching a command
+ * costs one trie walk per argument instead of a linear scan over every sub-command.
+ *
+ * @since 3.1.0
+ */
+final class CommandTree {
+
+    private final Node root = new Node(null, null);
+
+    /**
+     * Compiles the given sub-command trees.
+     *
+     * @param subCommands        The top level sub-commands.
+     * @param defaultCompletions Resolves the suggestions of argument nodes that do not declare their own.
+     * @throws IllegalArgumentException if two literals on the same level share a name or alias.
+     */
+    CommandTree(List<SubCommand> subCommands, Function<ArgumentType, CompletionSource> defaultCompletions) {
+        for (SubCommand subCommand : subCommands) {
+            root.add(compile(subCommand, defaultCompletions));
+        }
+        root.freeze();
+    }
+
+    private static Node compile(SubCommand subCommand, Function<ArgumentType, CompletionSource> defaultCompletions) {
+        CompletionSource completions = null;
+        if (subCommand.isArgument()) {
+            completions = subCommand.getCompletions() != null ? subCommand.getCompletions() : defaultCompletions.apply(subCommand.getType());
+        }
+        Node node = new Node(subCommand, completions);
+        for (SubCommand child : subCommand.getChildren()) {
+            node.add(compile(child, defaultCompletions));
+        }
+        node.freeze();
+        return node;
+    }
+
+    /**
+     * Gets the suggestions for the last of the given arguments.
+     * The preceding arguments are matched against the tree without binding them.
+     *
+     * @param sender The sender completing the command.
+     * @param args   The arguments typed so far, the last one being incomplete.
+     * @return The matching suggestions.
+     */
+    List<String> complete(CommandSender sender, String[] args) {
+        Node node = root;
+        for (int i = 0; i < args.length - 1 && node != null; i++) {
+            node = node.peek(args[i]);
+        }
+        if (node == null || args.length == 0) return Collections.emptyList();
+        return node.suggest(sender, args[args.length - 1]);
+    }
+
+    /**
+     * Walks the tree along the given arguments, binding every matched argument node to the given context.
+     * Literal children are preferred over argument children, and argument children are tried in the order they were declared.
+     * The walk stops at the first argument no child matches; if that node expected a typed argument, the failure is
+     * recorded as a parse error on the context.
+     *
+     * @param args    The arguments of the command.
+     * @param context The context receiving the typed values.
+     * @return The deepest node on the matched path that can be executed, or null if there is none.
+     */
+    Node dispatch(String[] args, ParseContext context) {
+        Node node = root;
+        Node executable = null;
+        for (int i = 0; i < args.length; i++) {
+            Node next = node.match(args[i], context);
+            if (next == null) {
+                if (node.arguments.length > 0) {
+                    SubCommand expected = node.arguments[0].source;
+                    context.fail(i, expected.getName(), expected.getType(), args[i]);
+                }
+                break;
+            }
+            node = next;
+            if (node.consumer != null) executable = node;
+        }
+        return executable;
+    }
+
+    /**
+     * A compiled node of the tree.
+     */
+    static final class Node {
+
+        private final SubCommand source;
+        private final LiteralTrie<Node> literals = new LiteralTrie<>();
+        private final List<Node> argumentList = new ArrayList<>();
+        private final List<String> literalNames = new ArrayList<>();
+        private final Consumer<CommandExecution> consumer;
+        private final CompletionSource completions;
+
+        private Node[] arguments = new Node[0];
+        private CompletionIndex literalIndex = CompletionIndex.empty();
+
+        private Node(SubCommand source, CompletionSource completions) {
+            this.source = source;
+            this.consumer = source != null ? source.getConsumer() : null;
+            this.completions = completions;
+        }
+
+        private void freeze() {
+            literalIndex = CompletionIndex.of(literalNames);
+        }
+
+        private void add(Node child) {
+            SubCommand subCommand = child.source;
+            if (subCommand.isArgument()) {
+                argumentList.add(child);
+                arguments = argumentList.toArray(new Node[0]);
+                return;
+            }
+            putLiteral(subCommand.getName(), child);
+            literalNames.add(subCommand.getName());
+            for (String alias : subCommand.getAliases()) {
+                putLiteral(alias, child);
+            }
+        }
+
+        private void putLiteral(String name, Node child) {
+            if (literals.put(name, child) != null) {
+                throw new IllegalArgumentException("Duplicate sub-command: " + name);
+            }
+        }
+
+        private Node match(String token, ParseContext context) {
+            Node literal = literals.get(token);
+            if (literal != null) return literal;
+            for (Node argument : arguments) {
+                if (context.bind(argument.source.getName(), argument.source.getType(), token)) return argument;
+            }
+            return null;
+        }
+
+        private Node peek(String token) {
+            Node literal = literals.get(token);
+            if (literal != null) return literal;
+            for (Node argument : arguments) {
+                if (argument.source.getType().matches(token)) return argument;
+            }
+            return null;
+        }
+
+        private List<String> suggest(CommandSender sender, String prefix) {
+            List<String> literalSuggestions = literalIndex.complete(prefix);
+            if (arguments.length == 0) return literalSuggestions;
+            if (arguments.length == 1 && literalSuggestions.isEmpty()) {
+                return arguments[0].completions.complete(sender, prefix);
+            }
+            List<String> suggestions = new ArrayList<>(literalSuggestions);
+            for (Node argument : arguments) {
+                suggestions.addAll(argument.completions.complete(sender, prefix));
+            }
+            return suggestions;
+        }
+
+        /**
+         * Gets the sub-command this node was compiled from.
+         *
+         * @return The declaring SubCommand.
+         */
+        SubCommand getSource() {
+            return source;
+        }
+
+        /**
+         * Gets the consumer function handling the execution of this node.
+         *
+         * @return The consumer function, or null if this node cannot be executed on its own.
+         */
+        Consumer<CommandExecution> getConsumer() {
+            return consumer;
+        }
+    }
+}
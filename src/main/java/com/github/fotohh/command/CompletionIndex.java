@@ -0,0 +1,208 @@
+package com.github.fotohh.command;
+
+import org.bukkit.Material;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The CompletionIndex class is an immutable, pre-sorted set of tab-completion candidates.
+ * A prefix query is answered with two binary searches and returned as a read-only view of the sorted candidates,
+ * so it neither copies nor filters. The range of the previous query is remembered, and a query that extends it
+ * (the player typed another character) only searches inside that range.
+ *
+ * @since 3.1.0
+ */
+public final class CompletionIndex implements CompletionSource {
+
+    private static final CompletionIndex EMPTY = new CompletionIndex(Collections.emptyList());
+    private static final CompletionIndex BOOLEANS = new CompletionIndex(Arrays.asList("true", "false"));
+    private static CompletionIndex materials;
+
+    private final String[] keys;
+    private final List<String> candidates;
+
+    private volatile Range lastRange;
+
+    private CompletionIndex(Collection<String> values) {
+        String[] sorted = values.stream().distinct().toArray(String[]::new);
+        Arrays.sort(sorted, (first, second) -> lowerCase(first).compareTo(lowerCase(second)));
+        this.keys = new String[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            keys[i] = lowerCase(sorted[i]);
+        }
+        this.candidates = Collections.unmodifiableList(Arrays.asList(sorted));
+        this.lastRange = new Range("", 0, sorted.length);
+    }
+
+    /**
+     * Creates an index of the given candidates.
+     *
+     * @param candidates The suggestions to offer.
+     * @return The new CompletionIndex instance.
+     * @since 3.1.0
+     */
+    public static CompletionIndex of(Collection<String> candidates) {
+        return new CompletionIndex(candidates);
+    }
+
+    /**
+     * Creates an index of the given candidates.
+     *
+     * @param candidates The suggestions to offer.
+     * @return The new CompletionIndex instance.
+     * @since 3.1.0
+     */
+    public static CompletionIndex of(String... candidates) {
+        return new CompletionIndex(Arrays.asList(candidates));
+    }
+
+    /**
+     * Creates an index of the lower case names of the constants of an enum.
+     *
+     * @param enumClass The enum class.
+     * @param <E>       The type of the enum.
+     * @return The new CompletionIndex instance.
+     * @since 3.1.0
+     */
+    public static <E extends Enum<E>> CompletionIndex ofEnum(Class<E> enumClass) {
+        List<String> names = new ArrayList<>();
+        for (E constant : enumClass.getEnumConstants()) {
+            names.add(constant.name().toLowerCase(Locale.ROOT));
+        }
+        return new CompletionIndex(names);
+    }
+
+    /**
+     * Gets the index of every material name accepted by {@link ArgumentParser#parseMaterial(String)}, excluding legacy materials.
+     *
+     * @return The shared material CompletionIndex.
+     * @since 3.1.0
+     */
+    @SuppressWarnings("deprecation")
+    public static synchronized CompletionIndex materials() {
+        if (materials == null) {
+            List<String> names = new ArrayList<>();
+            for (Material material : Material.values()) {
+                if (!material.isLegacy()) names.add(material.name().toLowerCase(Locale.ROOT));
+            }
+            materials = new CompletionIndex(names);
+        }
+        return materials;
+    }
+
+    /**
+     * Gets the index of the values accepted by {@link ArgumentType#BOOLEAN}.
+     *
+     * @return The shared boolean CompletionIndex.
+     * @since 3.1.0
+     */
+    public static CompletionIndex booleans() {
+        return BOOLEANS;
+    }
+
+    /**
+     * Gets an index without candidates.
+     *
+     * @return The shared empty CompletionIndex.
+     * @since 3.1.0
+     */
+    public static CompletionIndex empty() {
+        return EMPTY;
+    }
+
+    @Override
+    public List<String> complete(String prefix) {
+        Range range = lastRange;
+        int from = 0;
+        int to = keys.length;
+        if (startsWithIgnoreCase(prefix, range.prefix)) {
+            if (prefix.length() == range.prefix.length()) return candidates.subList(range.from, range.to);
+            from = range.from;
+            to = range.to;
+        }
+        int low = bound(prefix, from, to, false);
+        int high = bound(prefix, low, to, true);
+        lastRange = new Range(prefix, low, high);
+        return candidates.subList(low, high);
+    }
+
+    /**
+     * Gets the number of candidates in this index.
+     *
+     * @return The number of candidates.
+     * @since 3.1.0
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Finds the first key in the range that is not before the prefix ({@code upper == false})
+     * or that is after every key starting with the prefix ({@code upper == true}).
+     */
+    private int bound(String prefix, int from, int to, boolean upper) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compareToPrefix(keys[middle], prefix);
+            if (comparison < 0 || upper && comparison == 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Compares the start of a lower case key with a prefix, lower casing the prefix one character at a time.
+     *
+     * @return 0 if the key starts with the prefix, otherwise the sign of the order between the two.
+     */
+    private static int compareToPrefix(String key, String prefix) {
+        int length = Math.min(key.length(), prefix.length());
+        for (int i = 0; i < length; i++) {
+            int difference = key.charAt(i) - Character.toLowerCase(prefix.charAt(i));
+            if (difference != 0) return difference;
+        }
+        return key.length() < prefix.length() ? -1 : 0;
+    }
+
+    private static boolean startsWithIgnoreCase(String value, String prefix) {
+        if (value.length() < prefix.length()) return false;
+        for (int i = 0; i < prefix.length(); i++) {
+            if (Character.toLowerCase(value.charAt(i)) != Character.toLowerCase(prefix.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Lower cases a string one character at a time, matching how prefixes are compared.
+     */
+    private static String lowerCase(String value) {
+        char[] chars = value.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    private static final class Range {
+
+        private final String prefix;
+        private final int from;
+        private final int to;
+
+        private Range(String prefix, int from, int to) {
+            this.prefix = prefix;
+            this.from = from;
+            this.to = to;
+        }
+    }
+}
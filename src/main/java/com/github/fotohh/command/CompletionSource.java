@@ -0,0 +1,36 @@
+package com.github.fotohh.command;
+
+import org.bukkit.command.CommandSender;
+
+import java.util.List;
+
+/**
+ * The CompletionSource interface supplies tab-completion suggestions for a command argument.
+ *
+ * @since 3.1.0
+ */
+@FunctionalInterface
+public interface CompletionSource {
+
+    /**
+     * Gets the suggestions that start with the given prefix, ignoring case.
+     *
+     * @param prefix The part of the argument typed so far.
+     * @return The matching suggestions. The returned list may be a read-only view and must not be modified.
+     * @since 3.1.0
+     */
+    List<String> complete(String prefix);
+
+    /**
+     * Gets the suggestions for the given sender that start with the given prefix, ignoring case.
+     * Sources whose suggestions depend on the sender, like the names of the players they can see, override this.
+     *
+     * @param sender The sender completing the command.
+     * @param prefix The part of the argument typed so far.
+     * @return The matching suggestions. The returned list may be a read-only view and must not be modified.
+     * @since 3.1.0
+     */
+    default List<String> complete(CommandSender sender, String prefix) {
+        return complete(prefix);
+    }
+}
@@ -0,0 +1,145 @@
+package com.github.fotohh.command;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The LatencyHistogram class records durations in log-linear buckets, in the style of an HDR histogram.
+ * Every power of two is split into {@value #SUB_BUCKETS} / 2 linear buckets, and percentiles report the highest
+ * value of their bucket, so they are at most about 6.25% above the recorded value. Recording updates three
+ * atomic counters, for the bucket, the total and the maximum, and never locks, so it can be done on the main thread
+ * and read from any thread.
+ * <p>
+ * Durations longer than {@link #getHighestTrackableValue()} are counted in the highest bucket.
+ *
+ * @since 3.1.0
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+    private static final int MAX_BIT_LENGTH = 36;
+
+    private final AtomicLongArray counts = new AtomicLongArray(SUB_BUCKETS + (MAX_BIT_LENGTH - SUB_BUCKET_BITS) * HALF_SUB_BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos The duration in nanoseconds.
+     * @since 3.1.0
+     */
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(indexOf(Math.min(nanos, getHighestTrackableValue())));
+        total.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    /**
+     * Gets the number of recorded durations.
+     *
+     * @return The count of recorded durations.
+     * @since 3.1.0
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Gets the mean of the recorded durations.
+     *
+     * @param unit The unit of the result.
+     * @return The mean duration, or 0 if nothing was recorded.
+     * @since 3.1.0
+     */
+    public double getMean(TimeUnit unit) {
+        long count = getCount();
+        return count == 0 ? 0 : (double) total.sum() / count / unit.toNanos(1);
+    }
+
+    /**
+     * Gets the longest recorded duration.
+     *
+     * @param unit The unit of the result.
+     * @return The longest duration, or 0 if nothing was recorded.
+     * @since 3.1.0
+     */
+    public double getMax(TimeUnit unit) {
+        return (double) max.get() / unit.toNanos(1);
+    }
+
+    /**
+     * Gets the duration below or at which the given percentage of the recorded durations fall.
+     *
+     * @param percentile The percentile between 0 and 100.
+     * @param unit       The unit of the result.
+     * @return The duration at the percentile, or 0 if nothing was recorded.
+     * @since 3.1.0
+     */
+    public double getValueAtPercentile(double percentile, TimeUnit unit) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("The percentile must be between 0 and 100: " + percentile);
+        }
+        long[] snapshot = new long[counts.length()];
+        long count = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                return (double) Math.min(highestValueOf(i), max.get()) / unit.toNanos(1);
+            }
+        }
+        return getMax(unit);
+    }
+
+    /**
+     * Gets the longest duration that is recorded in its own bucket.
+     *
+     * @return The highest trackable value in nanoseconds (about 68 seconds).
+     * @since 3.1.0
+     */
+    public long getHighestTrackableValue() {
+        return (1L << MAX_BIT_LENGTH) - 1;
+    }
+
+    /**
+     * Discards every recorded duration.
+     *
+     * @since 3.1.0
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        total.reset();
+        max.reset();
+    }
+
+    private static int indexOf(long value) {
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        if (shift <= 0) return (int) value;
+        return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (int) (value >>> shift) - HALF_SUB_BUCKETS;
+    }
+
+    private static long highestValueOf(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = (index - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        long subBucket = (index - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        return (subBucket << shift) + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,93 @@
+package com.github.fotohh.command;
+
+import java.util.Arrays;
+
+/**
+ * A case-insensitive prefix trie mapping literal names to values.
+ * Lookups walk the characters of the key in place, so matching a token does not allocate.
+ *
+ * @param <T> The type of the values stored in the trie.
+ * @since 3.1.0
+ */
+final class LiteralTrie<T> {
+
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_NODES = new Node[0];
+
+    private final Node root = new Node();
+
+    private int size;
+
+    /**
+     * Maps the given key to the given value, ignoring the case of the key.
+     *
+     * @param key   The key to map.
+     * @param value The value to store.
+     * @return The value previously mapped to the key, or null if there was none.
+     */
+    @SuppressWarnings("unchecked")
+    T put(String key, T value) {
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.getOrCreate(Character.toLowerCase(key.charAt(i)));
+        }
+        T previous = (T) node.value;
+        node.value = value;
+        if (previous == null) size++;
+        return previous;
+    }
+
+    /**
+     * Gets the value mapped to the given key, ignoring the case of the key.
+     *
+     * @param key The key to look up.
+     * @return The mapped value, or null if the key is not mapped.
+     */
+    @SuppressWarnings("unchecked")
+    T get(String key) {
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.get(Character.toLowerCase(key.charAt(i)));
+        }
+        return node == null ? null : (T) node.value;
+    }
+
+    /**
+     * Checks if the trie has no mappings.
+     *
+     * @return true if no key was mapped, false otherwise.
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    private static final class Node {
+
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_NODES;
+        private Object value;
+
+        private Node get(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            return index >= 0 ? children[index] : null;
+        }
+
+        private Node getOrCreate(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            if (index >= 0) return children[index];
+            int insert = -index - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insert);
+            System.arraycopy(children, 0, newChildren, 0, insert);
+            System.arraycopy(keys, insert, newKeys, insert + 1, keys.length - insert);
+            System.arraycopy(children, insert, newChildren, insert + 1, children.length - insert);
+            Node child = new Node();
+            newKeys[insert] = key;
+            newChildren[insert] = child;
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+    }
+}
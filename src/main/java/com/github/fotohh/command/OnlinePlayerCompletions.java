@@ -0,0 +1,120 @@
+package com.github.fotohh.command;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.Plugin;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The OnlinePlayerCompletions class suggests the names of online players.
+ * The names are kept in a {@link CompletionIndex} that is rebuilt when a player joins or quits,
+ * together with the players by name, so completing a name does not scan or look up the online players.
+ * Completing for a player only suggests the players they can see, like Bukkit does.
+ *
+ * @since 3.1.0
+ */
+public final class OnlinePlayerCompletions implements CompletionSource, Listener {
+
+    private static OnlinePlayerCompletions instance;
+
+    private final Plugin plugin;
+
+    private volatile Online online;
+
+    private OnlinePlayerCompletions(Plugin plugin) {
+        this.plugin = plugin;
+        rebuild(null);
+    }
+
+    /**
+     * Gets the shared instance, registering its listener with the given plugin on first use.
+     *
+     * @param plugin The plugin to register the join and quit listener with.
+     * @return The shared OnlinePlayerCompletions instance.
+     * @since 3.1.0
+     */
+    public static synchronized OnlinePlayerCompletions get(Plugin plugin) {
+        if (instance == null || !instance.plugin.isEnabled()) {
+            instance = new OnlinePlayerCompletions(plugin);
+            plugin.getServer().getPluginManager().registerEvents(instance, plugin);
+        }
+        return instance;
+    }
+
+    /**
+     * Gets the names of every online player that start with the given prefix, including hidden players.
+     * Use {@link #complete(CommandSender, String)} to complete for a sender.
+     */
+    @Override
+    public List<String> complete(String prefix) {
+        return online.index.complete(prefix);
+    }
+
+    /**
+     * Gets the names of the online players the sender can see that start with the given prefix.
+     * Senders other than players see every player.
+     */
+    @Override
+    public List<String> complete(CommandSender sender, String prefix) {
+        Online online = this.online;
+        List<String> names = online.index.complete(prefix);
+        if (!(sender instanceof Player)) return names;
+        Player viewer = (Player) sender;
+        List<String> visible = new ArrayList<>(names.size());
+        for (String name : names) {
+            if (viewer.canSee(online.players.get(name))) visible.add(name);
+        }
+        return visible;
+    }
+
+    /**
+     * Rebuilds the index when a player joins.
+     *
+     * @param event The PlayerJoinEvent that was triggered.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent event) {
+        rebuild(null);
+    }
+
+    /**
+     * Rebuilds the index without the quitting player.
+     *
+     * @param event The PlayerQuitEvent that was triggered.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        rebuild(event.getPlayer());
+    }
+
+    private void rebuild(Player excluded) {
+        Map<String, Player> players = new HashMap<>();
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            if (player != excluded) players.put(player.getName(), player);
+        }
+        online = new Online(CompletionIndex.of(players.keySet()), players);
+    }
+
+    /**
+     * The index of the online players and the players by name, replaced together.
+     */
+    private static final class Online {
+
+        private final CompletionIndex index;
+        private final Map<String, Player> players;
+
+        private Online(CompletionIndex index, Map<String, Player> players) {
+            this.index = index;
+            this.players = players;
+        }
+    }
+}
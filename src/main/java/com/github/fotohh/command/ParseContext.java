@@ -0,0 +1,207 @@
+package com.github.fotohh.command;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Holds the typed values bound while dispatching a single command invocation.
+ * Every thread reuses one instance, so binding arguments allocates nothing once the slot arrays have grown to fit.
+ * Numeric values are stored unboxed: integral types and booleans in a long array, decimals in a double array.
+ *
+ * @since 3.1.0
+ */
+final class ParseContext {
+
+    private static final ThreadLocal<ParseContext> CURRENT = ThreadLocal.withInitial(ParseContext::new);
+
+    private String[] names = new String[8];
+    private ArgumentType[] types = new ArgumentType[8];
+    private long[] longs = new long[8];
+    private double[] doubles = new double[8];
+    private Object[] objects = new Object[8];
+    private int size;
+
+    private boolean acquired;
+
+    private int errorIndex = -1;
+    private String errorName;
+    private ArgumentType errorType;
+    private String errorInput;
+
+    /**
+     * Gets the context of the current thread.
+     * If it is already in use (a command dispatched from inside another command), a fresh context is returned instead.
+     *
+     * @return An empty ParseContext that must be handed back with {@link #release()}.
+     */
+    static ParseContext acquire() {
+        ParseContext context = CURRENT.get();
+        if (context.acquired) {
+            context = new ParseContext();
+        }
+        context.acquired = true;
+        return context;
+    }
+
+    /**
+     * Clears this context so it can be reused by the next invocation on this thread.
+     */
+    void release() {
+        clear();
+        acquired = false;
+    }
+
+    /**
+     * Removes all bound values and the recorded error.
+     */
+    void clear() {
+        Arrays.fill(objects, 0, size, null);
+        size = 0;
+        errorIndex = -1;
+        errorName = null;
+        errorType = null;
+        errorInput = null;
+    }
+
+    /**
+     * Parses the token as the given type and binds it to the given name.
+     * Nothing is bound if the token is not a valid value of the type.
+     *
+     * @param name  The parameter name.
+     * @param type  The parameter type.
+     * @param token The argument to parse.
+     * @return true if the token was bound, false otherwise.
+     */
+    boolean bind(String name, ArgumentType type, String token) {
+        if (token == null) return false;
+        ensureCapacity(size + 1);
+        switch (type) {
+            case INTEGER:
+                if (!ArgumentParser.isInt(token)) return false;
+                longs[size] = Integer.parseInt(token);
+                break;
+            case LONG:
+                if (!ArgumentParser.isLong(token)) return false;
+                longs[size] = Long.parseLong(token);
+                break;
+            case FLOAT:
+                if (!ArgumentParser.isDouble(token)) return false;
+                doubles[size] = Float.parseFloat(token);
+                break;
+            case DOUBLE:
+                if (!ArgumentParser.isDouble(token)) return false;
+                doubles[size] = Double.parseDouble(token);
+                break;
+            case BOOLEAN:
+                if (!type.matches(token)) return false;
+                longs[size] = token.length() == 4 ? 1L : 0L;
+                break;
+            case PLAYER:
+                objects[size] = ArgumentParser.parsePlayer(token);
+                break;
+            case UUID:
+                objects[size] = ArgumentParser.isUUID(token) ? UUID.fromString(token) : null;
+                break;
+            case MATERIAL:
+                objects[size] = ArgumentParser.parseMaterial(token);
+                break;
+            default:
+                objects[size] = token;
+                break;
+        }
+        if (objects[size] == null && (type == ArgumentType.PLAYER || type == ArgumentType.UUID || type == ArgumentType.MATERIAL)) {
+            return false;
+        }
+        names[size] = name;
+        types[size] = type;
+        size++;
+        return true;
+    }
+
+    /**
+     * Records an argument that could not be bound. Only the first error is kept.
+     *
+     * @param index The index of the argument.
+     * @param name  The name of the parameter it was bound to.
+     * @param type  The expected type.
+     * @param input The raw argument.
+     */
+    void fail(int index, String name, ArgumentType type, String input) {
+        if (errorIndex >= 0) return;
+        errorIndex = index;
+        errorName = name;
+        errorType = type;
+        errorInput = input;
+    }
+
+    /**
+     * Creates a copy of this context which stays valid after this one is released.
+     *
+     * @return A detached copy of the bound values and the recorded error.
+     */
+    ParseContext copy() {
+        ParseContext copy = new ParseContext();
+        copy.ensureCapacity(size);
+        System.arraycopy(names, 0, copy.names, 0, size);
+        System.arraycopy(types, 0, copy.types, 0, size);
+        System.arraycopy(longs, 0, copy.longs, 0, size);
+        System.arraycopy(doubles, 0, copy.doubles, 0, size);
+        System.arraycopy(objects, 0, copy.objects, 0, size);
+        copy.size = size;
+        copy.errorIndex = errorIndex;
+        copy.errorName = errorName;
+        copy.errorType = errorType;
+        copy.errorInput = errorInput;
+        return copy;
+    }
+
+    /**
+     * Finds the slot a parameter was bound to. If a name was bound more than once the last binding wins.
+     *
+     * @param name The parameter name.
+     * @return The slot index, or -1 if the name is not bound.
+     */
+    int indexOf(String name) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (names[i] == name) return i;
+        }
+        for (int i = size - 1; i >= 0; i--) {
+            if (names[i].equals(name)) return i;
+        }
+        return -1;
+    }
+
+    ArgumentType getType(int index) {
+        return types[index];
+    }
+
+    long getLong(int index) {
+        return longs[index];
+    }
+
+    double getDouble(int index) {
+        return doubles[index];
+    }
+
+    Object getObject(int index) {
+        return objects[index];
+    }
+
+    boolean hasError() {
+        return errorIndex >= 0;
+    }
+
+    ArgumentParseError createError() {
+        return errorIndex >= 0 ? new ArgumentParseError(errorIndex, errorName, errorType, errorInput) : null;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= names.length) return;
+        int newCapacity = Math.max(capacity, names.length * 2);
+        names = Arrays.copyOf(names, newCapacity);
+        types = Arrays.copyOf(types, newCapacity);
+        longs = Arrays.copyOf(longs, newCapacity);
+        doubles = Arrays.copyOf(doubles, newCapacity);
+        objects = Arrays.copyOf(objects, newCapacity);
+    }
+}
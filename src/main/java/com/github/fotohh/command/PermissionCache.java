@@ -0,0 +1,130 @@
+package com.github.fotohh.command;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The PermissionCache class remembers the result of permission checks per player, so a hot command does not ask
+ * the permission plugin on every invocation. Results are kept until they are older than the age a caller accepts,
+ * the player quits or changes worlds (where per-world permissions may differ), or they are invalidated explicitly.
+ * <p>
+ * Bukkit has no event for permission changes, so code that changes permissions outside of
+ * {@link com.github.fotohh.PermissionManager} should call {@link #invalidate(Player)} to apply them right away.
+ *
+ * @since 3.1.0
+ */
+public final class PermissionCache implements Listener {
+
+    private static PermissionCache instance;
+
+    private final Plugin plugin;
+    private final Map<UUID, Map<String, Result>> results = new ConcurrentHashMap<>();
+
+    private PermissionCache(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Gets the shared instance, registering its listener with the given plugin on first use.
+     *
+     * @param plugin The plugin to register the quit and world change listener with.
+     * @return The shared PermissionCache instance.
+     * @since 3.1.0
+     */
+    public static synchronized PermissionCache get(Plugin plugin) {
+        if (instance == null || !instance.plugin.isEnabled()) {
+            instance = new PermissionCache(plugin);
+            plugin.getServer().getPluginManager().registerEvents(instance, plugin);
+        }
+        return instance;
+    }
+
+    /**
+     * Checks if a player has a permission, reusing a cached result that is not older than the given age.
+     *
+     * @param player     The player to check.
+     * @param permission The permission node.
+     * @param maxAge     The maximum age of a cached result in nanoseconds.
+     * @return true if the player has the permission, false otherwise.
+     * @since 3.1.0
+     */
+    public boolean hasPermission(Player player, String permission, long maxAge) {
+        Map<String, Result> playerResults = results.computeIfAbsent(player.getUniqueId(), uuid -> new ConcurrentHashMap<>());
+        long now = System.nanoTime();
+        Result result = playerResults.get(permission);
+        if (result == null || now - result.checkedAt > maxAge) {
+            result = new Result(player.hasPermission(permission), now);
+            playerResults.put(permission, result);
+        }
+        return result.value;
+    }
+
+    /**
+     * Discards the cached results of a player.
+     *
+     * @param player The player whose permissions changed.
+     * @since 3.1.0
+     */
+    public void invalidate(Player player) {
+        invalidate(player.getUniqueId());
+    }
+
+    /**
+     * Discards the cached results of a player.
+     *
+     * @param uuid The UUID of the player whose permissions changed.
+     * @since 3.1.0
+     */
+    public void invalidate(UUID uuid) {
+        results.remove(uuid);
+    }
+
+    /**
+     * Discards every cached result, for example after the permission plugin reloaded its groups.
+     *
+     * @since 3.1.0
+     */
+    public void invalidateAll() {
+        results.clear();
+    }
+
+    /**
+     * Discards the cached results of the quitting player.
+     *
+     * @param event The PlayerQuitEvent that was triggered.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        invalidate(event.getPlayer());
+    }
+
+    /**
+     * Discards the cached results of a player that changed worlds.
+     *
+     * @param event The PlayerChangedWorldEvent that was triggered.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldChange(PlayerChangedWorldEvent event) {
+        invalidate(event.getPlayer());
+    }
+
+    private static final class Result {
+
+        private final boolean value;
+        private final long checkedAt;
+
+        private Result(boolean value, long checkedAt) {
+            this.value = value;
+            this.checkedAt = checkedAt;
+        }
+    }
+}
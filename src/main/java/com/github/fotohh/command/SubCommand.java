@@ -0,0 +1,193 @@
+package com.github.fotohh.command;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The SubCommand class declares one node of a sub-command tree that can be registered on a {@link CommandHandler}.
+ * A node is either a literal (matched by its name or one of its aliases, ignoring case) or a typed argument
+ * (matched when the input token can be parsed as its {@link ArgumentType}).
+ * <p>
+ * The tree is compiled into a prefix trie when it is registered, so changing a node afterwards has no effect
+ * until it is registered again.
+ *
+ * <pre>{@code
+ * handler.registerSubCommand(SubCommand.literal("invite").alias("inv")
+ *         .then(SubCommand.argument("player", ArgumentType.PLAYER)
+ *                 .onExecute(execution -> ...)));
+ * }</pre>
+ *
+ * @since 3.1.0
+ */
+public class SubCommand {
+
+    private final String name;
+    private final ArgumentType type;
+    private final List<String> aliases = new ArrayList<>();
+    private final List<SubCommand> children = new ArrayList<>();
+
+    private Consumer<CommandExecution> consumer;
+    private CompletionSource completions;
+
+    private SubCommand(String name, ArgumentType type) {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("A sub-command needs a name.");
+        }
+        this.name = name;
+        this.type = type;
+    }
+
+    /**
+     * Creates a literal node which is matched by its name, ignoring case.
+     *
+     * @param name The name of the sub-command.
+     * @return The new SubCommand instance.
+     * @since 3.1.0
+     */
+    public static SubCommand literal(String name) {
+        return new SubCommand(name, null);
+    }
+
+    /**
+     * Creates an argument node which is matched by any token that can be parsed as the given type.
+     *
+     * @param name The name of the argument.
+     * @param type The type the token must have.
+     * @return The new SubCommand instance.
+     * @since 3.1.0
+     */
+    public static SubCommand argument(String name, ArgumentType type) {
+        if (type == null) {
+            throw new IllegalArgumentException("An argument node needs a type.");
+        }
+        return new SubCommand(name, type);
+    }
+
+    /**
+     * Adds aliases to this literal node.
+     *
+     * @param aliases The aliases that match this node as well as its name.
+     * @return The current SubCommand instance.
+     * @since 3.1.0
+     */
+    public SubCommand alias(String... aliases) {
+        if (isArgument()) {
+            throw new IllegalStateException("Argument nodes cannot have aliases: " + name);
+        }
+        this.aliases.addAll(Arrays.asList(aliases));
+        return this;
+    }
+
+    /**
+     * Adds a child node which is matched by the token following this node.
+     *
+     * @param child The child node.
+     * @return The current SubCommand instance.
+     * @since 3.1.0
+     */
+    public SubCommand then(SubCommand child) {
+        children.add(child);
+        return this;
+    }
+
+    /**
+     * Sets the tab-completion suggestions of this argument node.
+     * If no suggestions are set, the defaults of the {@link ArgumentType} are used.
+     *
+     * @param completions The source of suggestions, for example a {@link CompletionIndex}.
+     * @return The current SubCommand instance.
+     * @since 3.1.0
+     */
+    public SubCommand suggests(CompletionSource completions) {
+        if (!isArgument()) {
+            throw new IllegalStateException("Literal nodes are suggested by name: " + name);
+        }
+        this.completions = completions;
+        return this;
+    }
+
+    /**
+     * Sets the consumer function to handle the execution of this node.
+     *
+     * @param consumer The consumer function that accepts a CommandExecution instance.
+     * @return The current SubCommand instance.
+     * @since 3.1.0
+     */
+    public SubCommand onExecute(Consumer<CommandExecution> consumer) {
+        this.consumer = consumer;
+        return this;
+    }
+
+    /**
+     * Gets the name of this node.
+     *
+     * @return The name of the literal or argument.
+     * @since 3.1.0
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the type of this node.
+     *
+     * @return The ArgumentType of this argument node, or null if this is a literal node.
+     * @since 3.1.0
+     */
+    public ArgumentType getType() {
+        return type;
+    }
+
+    /**
+     * Checks if this is an argument node.
+     *
+     * @return true if this node is matched by type, false if it is matched by name.
+     * @since 3.1.0
+     */
+    public boolean isArgument() {
+        return type != null;
+    }
+
+    /**
+     * Gets the aliases of this node.
+     *
+     * @return An unmodifiable list of aliases.
+     * @since 3.1.0
+     */
+    public List<String> getAliases() {
+        return Collections.unmodifiableList(aliases);
+    }
+
+    /**
+     * Gets the children of this node.
+     *
+     * @return An unmodifiable list of child nodes.
+     * @since 3.1.0
+     */
+    public List<SubCommand> getChildren() {
+        return Collections.unmodifiableList(children);
+    }
+
+    /**
+     * Gets the tab-completion suggestions of this argument node.
+     *
+     * @return The CompletionSource, or null if the defaults of the ArgumentType are used.
+     * @since 3.1.0
+     */
+    public CompletionSource getCompletions() {
+        return completions;
+    }
+
+    /**
+     * Gets the consumer function handling the execution of this node.
+     *
+     * @return The consumer function, or null if this node cannot be executed on its own.
+     * @since 3.1.0
+     */
+    public Consumer<CommandExecution> getConsumer() {
+        return consumer;
+    }
+}
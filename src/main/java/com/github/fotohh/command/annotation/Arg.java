@@ -0,0 +1,26 @@
+package com.github.fotohh.command.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Binds a parameter of a {@link SubCommand} method to a typed command argument.
+ * The {@link com.github.fotohh.command.ArgumentType} is derived from the parameter type, which must be
+ * {@code String}, {@code int}, {@code long}, {@code float}, {@code double}, {@code boolean} (or their wrappers),
+ * {@code UUID}, {@code Player} or {@code Material}.
+ *
+ * @since 3.1.0
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.PARAMETER)
+public @interface Arg {
+
+    /**
+     * @return The name of the argument.
+     */
+    String value();
+}
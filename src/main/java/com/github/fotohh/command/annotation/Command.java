@@ -0,0 +1,74 @@
+package com.github.fotohh.command.annotation;
+
+import com.github.fotohh.command.errors.SenderAndConsole;
+import com.github.fotohh.command.errors.SenderOptions;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares a class as the handler of a command from the plugin.yml.
+ * The {@link CommandProcessor} generates a {@link CommandIndex} at compile time that creates a
+ * {@link com.github.fotohh.command.CommandHandler} for every annotated class, so no classpath scanning
+ * or reflection is needed when the plugin enables. The class needs a public constructor that takes the
+ * {@link org.bukkit.plugin.java.JavaPlugin}, or a public no-argument constructor.
+ *
+ * <pre>{@code
+ * @Command(name = "party", permission = "party.use", permissionMessage = "No permission.")
+ * public class PartyCommand {
+ *
+ *     @SubCommand("invite")
+ *     public void invite(CommandExecution execution, @Arg("player") Player target) { ... }
+ * }
+ * }</pre>
+ *
+ * @since 3.1.0
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface Command {
+
+    /**
+     * @return The name of the command as declared in the plugin.yml.
+     */
+    String name();
+
+    /**
+     * @return The permission required to execute the command, or an empty string for none.
+     */
+    String permission() default "";
+
+    /**
+     * @return The message sent to players without the permission.
+     */
+    String permissionMessage() default "";
+
+    /**
+     * @return The usage message of the command, or an empty string for none.
+     */
+    String usage() default "";
+
+    /**
+     * @return The SenderOptions validating the sender. The class needs a public no-argument constructor.
+     */
+    Class<? extends SenderOptions> sender() default SenderAndConsole.class;
+
+    /**
+     * @return The message sent to senders rejected by the SenderOptions.
+     */
+    String senderMessage() default "";
+
+    /**
+     * @return The number of arguments the command needs at least.
+     */
+    int minArgs() default 0;
+
+    /**
+     * @return The message sent when the command has fewer arguments than {@link #minArgs()}.
+     */
+    String argsMessage() default "";
+}
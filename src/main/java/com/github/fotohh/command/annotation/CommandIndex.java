@@ -0,0 +1,25 @@
+package com.github.fotohh.command.annotation;
+
+import com.github.fotohh.command.CommandHandler;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.List;
+
+/**
+ * The CommandIndex interface is implemented by the classes the {@link CommandProcessor} generates for the
+ * {@link Command} classes of a plugin, one per command. They are found through a {@link java.util.ServiceLoader} by
+ * {@link com.github.fotohh.GeneralSpigotHelperAPI#registerAnnotatedCommands()}.
+ *
+ * @since 3.1.0
+ */
+public interface CommandIndex {
+
+    /**
+     * Creates and registers the handlers of the indexed commands.
+     *
+     * @param plugin The plugin owning the commands.
+     * @return The registered CommandHandler instances.
+     * @since 3.1.0
+     */
+    List<CommandHandler> register(JavaPlugin plugin);
+}
@@ -0,0 +1,448 @@
+package com.github.fotohh.command.annotation;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+/**
+ * The CommandProcessor class is the annotation processor behind {@link Command}, {@link SubCommand} and {@link Arg}.
+ * It checks the annotated classes at compile time and generates a {@link CommandIndex} next to every command,
+ * named after the command with {@code _CommandIndex} appended, together with the service file that lets
+ * {@link com.github.fotohh.GeneralSpigotHelperAPI#registerAnnotatedCommands()} find them.
+ * <p>
+ * Since every command has its own index, a build that only recompiles some commands regenerates only their
+ * indexes. The service file merges the indexes of this compilation with those listed by the previous one
+ * that still exist.
+ * <p>
+ * The processor is registered through {@code META-INF/services}, so it runs automatically when this library
+ * is on the compile classpath.
+ *
+ * @since 3.1.0
+ */
+public class CommandProcessor extends AbstractProcessor {
+
+    private static final String INDEX_SUFFIX = "_CommandIndex";
+    private static final String SERVICE_FILE = "META-INF/services/" + CommandIndex.class.getName();
+    private static final String COMMAND_PACKAGE = "com.github.fotohh.command.";
+    private static final String EXECUTION = COMMAND_PACKAGE + "CommandExecution";
+
+    private final Set<String> indexes = new TreeSet<>();
+    private final List<Element> commandElements = new ArrayList<>();
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Set.of(Command.class.getName(), SubCommand.class.getName(), Arg.class.getName());
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        List<TypeElement> commands = new ArrayList<>(ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(Command.class)));
+        for (ExecutableElement method : ElementFilter.methodsIn(roundEnv.getElementsAnnotatedWith(SubCommand.class))) {
+            if (method.getEnclosingElement().getAnnotation(Command.class) == null) {
+                error(method, "@SubCommand methods must be declared in a @Command class.");
+            }
+        }
+        for (TypeElement command : commands) {
+            StringBuilder method = new StringBuilder();
+            if (!compileCommand(command, method)) continue;
+            try {
+                indexes.add(writeIndex(command, method));
+                commandElements.add(command);
+            } catch (IOException e) {
+                error(command, "Could not write the command index: " + e.getMessage());
+            }
+        }
+        if (roundEnv.processingOver() && !commandElements.isEmpty()) {
+            try {
+                writeServiceFile();
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not write " + SERVICE_FILE + ": " + e.getMessage());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Appends the factory method of a command to the given builder.
+     *
+     * @return true if the command is valid, false otherwise.
+     */
+    private boolean compileCommand(TypeElement command, StringBuilder out) {
+        Command annotation = command.getAnnotation(Command.class);
+        boolean valid = true;
+        if (!command.getModifiers().contains(Modifier.PUBLIC) || command.getModifiers().contains(Modifier.ABSTRACT)
+                || command.getNestingKind().isNested() && !command.getModifiers().contains(Modifier.STATIC)) {
+            error(command, "@Command classes must be public, concrete and not inner classes.");
+            valid = false;
+        }
+        if (annotation.name().isEmpty()) {
+            error(command, "@Command needs a name.");
+            valid = false;
+        }
+        Boolean pluginConstructor = findConstructor(command);
+        if (pluginConstructor == null) {
+            error(command, "@Command classes need a public constructor taking a JavaPlugin, or a public no-argument constructor.");
+            valid = false;
+        }
+
+        Node root = new Node(null, null);
+        for (ExecutableElement method : ElementFilter.methodsIn(command.getEnclosedElements())) {
+            SubCommand subCommand = method.getAnnotation(SubCommand.class);
+            if (subCommand != null && !addMethod(root, method, subCommand)) valid = false;
+        }
+        if (!valid || !checkAliases(root)) return false;
+
+        String type = command.getQualifiedName().toString();
+        out.append("\n    private static ").append(COMMAND_PACKAGE).append("CommandHandler create")
+                .append("(org.bukkit.plugin.java.JavaPlugin plugin) {\n");
+        out.append("        ").append(type).append(" command = new ").append(type).append(pluginConstructor ? "(plugin);\n" : "();\n");
+        out.append("        ").append(COMMAND_PACKAGE).append("CommandHandler handler = new ").append(COMMAND_PACKAGE)
+                .append("CommandHandler(").append(literal(annotation.name())).append(", plugin, new ")
+                .append(senderOptions(command)).append("(), ").append(annotation.minArgs()).append(");\n");
+        if (!annotation.permission().isEmpty()) {
+            out.append("        handler.setNoPermissionMessage(").append(messageLiteral(annotation.permissionMessage()))
+                    .append(", ").append(literal(annotation.permission())).append(");\n");
+        }
+        appendSetter(out, "setUsageMessage", annotation.usage());
+        appendSetter(out, "setSenderMessage", annotation.senderMessage());
+        appendSetter(out, "setNotEnoughArgsMessage", annotation.argsMessage());
+        if (root.executor != null) {
+            out.append("        handler.onExecute(execution -> ").append(root.executor).append(");\n");
+        }
+        if (!root.children.isEmpty()) {
+            out.append("        handler.registerSubCommand(");
+            String separator = "";
+            for (Node child : root.children.values()) {
+                out.append(separator).append("\n                ");
+                child.write(out, "                ");
+                separator = ",";
+            }
+            out.append(");\n");
+        }
+        out.append("        return handler;\n    }\n");
+        return true;
+    }
+
+    /**
+     * Adds the path and arguments of a sub-command method to the tree.
+     *
+     * @return true if the method is valid, false otherwise.
+     */
+    private boolean addMethod(Node root, ExecutableElement method, SubCommand subCommand) {
+        Set<Modifier> modifiers = method.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.STATIC)) {
+            error(method, "@SubCommand methods must not be private or static.");
+            return false;
+        }
+        List<? extends VariableElement> parameters = method.getParameters();
+        if (parameters.isEmpty() || !parameters.get(0).asType().toString().equals(EXECUTION)) {
+            error(method, "The first parameter of a @SubCommand method must be a CommandExecution.");
+            return false;
+        }
+
+        Node node = root;
+        String[] path = subCommand.value().trim().split("\\s+");
+        for (String literal : path) {
+            if (literal.isEmpty()) continue;
+            node = node.child("literal:" + literal.toLowerCase(Locale.ROOT), () -> new Node(literal, null));
+        }
+        if (subCommand.aliases().length > 0) {
+            if (node == root) {
+                error(method, "Aliases of the command itself are declared in the plugin.yml.");
+                return false;
+            }
+            for (String alias : subCommand.aliases()) {
+                node.addAlias(alias, method);
+            }
+        }
+
+        StringBuilder call = new StringBuilder("command.").append(method.getSimpleName()).append("(execution");
+        for (int i = 1; i < parameters.size(); i++) {
+            VariableElement parameter = parameters.get(i);
+            Arg arg = parameter.getAnnotation(Arg.class);
+            if (arg == null) {
+                error(parameter, "Parameters after the CommandExecution must be annotated with @Arg.");
+                return false;
+            }
+            String[] binding = binding(parameter.asType());
+            if (binding == null) {
+                error(parameter, "Unsupported @Arg type: " + parameter.asType());
+                return false;
+            }
+            String argumentType = binding[0];
+            node = node.child("argument:" + arg.value() + ":" + argumentType, () -> new Node(arg.value(), argumentType));
+            call.append(", execution.").append(binding[1]).append('(').append(literal(arg.value())).append(binding[2]).append(')');
+        }
+        call.append(')');
+
+        if (node.executor != null) {
+            error(method, "Another @SubCommand method already executes this path.");
+            return false;
+        }
+        node.executor = call.toString();
+        return true;
+    }
+
+    /**
+     * Checks that no alias of a sub-command matches the name or an alias of another sub-command of the same parent,
+     * which the command tree would refuse when the plugin registers the command.
+     *
+     * @return true if the aliases are valid, false otherwise.
+     */
+    private boolean checkAliases(Node parent) {
+        boolean valid = true;
+        Map<String, Node> owners = new HashMap<>();
+        for (Node child : parent.children.values()) {
+            if (child.argumentType == null) owners.put(child.name.toLowerCase(Locale.ROOT), child);
+        }
+        for (Node child : parent.children.values()) {
+            for (Map.Entry<String, ExecutableElement> alias : child.aliases.entrySet()) {
+                Node owner = owners.putIfAbsent(alias.getKey().toLowerCase(Locale.ROOT), child);
+                if (owner != null && owner != child) {
+                    error(alias.getValue(), "The alias " + alias.getKey() + " of sub-command " + child.name
+                            + " is already used by sub-command " + owner.name + ".");
+                    valid = false;
+                }
+            }
+            if (!checkAliases(child)) valid = false;
+        }
+        return valid;
+    }
+
+    /**
+     * Maps a parameter type to its ArgumentType, the CommandExecution getter, and the getter's extra arguments.
+     */
+    private static String[] binding(TypeMirror type) {
+        switch (type.getKind()) {
+            case INT:
+                return new String[]{"INTEGER", "getInt", ", 0"};
+            case LONG:
+                return new String[]{"LONG", "getLong", ", 0L"};
+            case FLOAT:
+                return new String[]{"FLOAT", "getFloat", ", 0F"};
+            case DOUBLE:
+                return new String[]{"DOUBLE", "getDouble", ", 0D"};
+            case BOOLEAN:
+                return new String[]{"BOOLEAN", "getBoolean", ", false"};
+            case DECLARED:
+                break;
+            default:
+                return null;
+        }
+        switch (type.toString()) {
+            case "java.lang.String":
+                return new String[]{"STRING", "getString", ""};
+            case "java.lang.Integer":
+                return new String[]{"INTEGER", "getInt", ", 0"};
+            case "java.lang.Long":
+                return new String[]{"LONG", "getLong", ", 0L"};
+            case "java.lang.Float":
+                return new String[]{"FLOAT", "getFloat", ", 0F"};
+            case "java.lang.Double":
+                return new String[]{"DOUBLE", "getDouble", ", 0D"};
+            case "java.lang.Boolean":
+                return new String[]{"BOOLEAN", "getBoolean", ", false"};
+            case "java.util.UUID":
+                return new String[]{"UUID", "getUUID", ""};
+            case "org.bukkit.entity.Player":
+                return new String[]{"PLAYER", "getPlayer", ""};
+            case "org.bukkit.Material":
+                return new String[]{"MATERIAL", "getMaterial", ""};
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return true for a public JavaPlugin constructor, false for a public no-argument constructor, or null if neither exists.
+     */
+    private static Boolean findConstructor(TypeElement command) {
+        Boolean found = null;
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(command.getEnclosedElements())) {
+            if (!constructor.getModifiers().contains(Modifier.PUBLIC)) continue;
+            List<? extends VariableElement> parameters = constructor.getParameters();
+            if (parameters.size() == 1 && parameters.get(0).asType().toString().equals("org.bukkit.plugin.java.JavaPlugin")) {
+                return true;
+            }
+            if (parameters.isEmpty()) found = false;
+        }
+        return found;
+    }
+
+    /**
+     * Reads the sender class of a command from its annotation mirror, as the class itself is not loaded at compile time.
+     */
+    private String senderOptions(TypeElement command) {
+        for (AnnotationMirror mirror : command.getAnnotationMirrors()) {
+            if (!mirror.getAnnotationType().toString().equals(Command.class.getName())) continue;
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                    : processingEnv.getElementUtils().getElementValuesWithDefaults(mirror).entrySet()) {
+                if (entry.getKey().getSimpleName().contentEquals("sender")) {
+                    return entry.getValue().getValue().toString();
+                }
+            }
+        }
+        return COMMAND_PACKAGE + "errors.SenderAndConsole";
+    }
+
+    /**
+     * Writes the index of one command.
+     *
+     * @return The qualified name of the index.
+     */
+    private String writeIndex(TypeElement command, StringBuilder method) throws IOException {
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(command);
+        String packageName = packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+        String type = command.getQualifiedName().toString();
+        String simpleName = (packageName.isEmpty() ? type : type.substring(packageName.length() + 1)).replace('.', '_') + INDEX_SUFFIX;
+        String indexName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(indexName, command).openWriter()) {
+            if (!packageName.isEmpty()) writer.write("package " + packageName + ";\n\n");
+            writer.write("/**\n * Generated by " + CommandProcessor.class.getName() + " for {@link " + type + "}. Do not edit.\n */\n");
+            writer.write("public final class " + simpleName + " implements " + CommandIndex.class.getName() + " {\n\n");
+            writer.write("    @Override\n");
+            writer.write("    public java.util.List<" + COMMAND_PACKAGE + "CommandHandler> register(org.bukkit.plugin.java.JavaPlugin plugin) {\n");
+            writer.write("        return java.util.Collections.singletonList(create(plugin));\n    }\n");
+            writer.write(method.toString());
+            writer.write("}\n");
+        }
+        return indexName;
+    }
+
+    /**
+     * Writes the service file listing the indexes of this compilation and those of the previous one that still exist,
+     * as an incremental build only passes the changed commands to the processor.
+     */
+    private void writeServiceFile() throws IOException {
+        Set<String> entries = new TreeSet<>(indexes);
+        for (String entry : readServiceFile()) {
+            if (processingEnv.getElementUtils().getTypeElement(entry) != null) entries.add(entry);
+        }
+        try (Writer writer = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE,
+                commandElements.toArray(new Element[0])).openWriter()) {
+            for (String entry : entries) {
+                writer.write(entry + "\n");
+            }
+        }
+    }
+
+    private Set<String> readServiceFile() {
+        Set<String> entries = new TreeSet<>();
+        try {
+            FileObject existing = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            try (BufferedReader reader = new BufferedReader(existing.openReader(true))) {
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    line = line.trim();
+                    if (!line.isEmpty() && !line.startsWith("#")) entries.add(line);
+                }
+            }
+        } catch (IOException | IllegalArgumentException ignored) {
+            // There is no previous service file on a clean build.
+        }
+        return entries;
+    }
+
+    private void appendSetter(StringBuilder out, String setter, String message) {
+        if (!message.isEmpty()) {
+            out.append("        handler.").append(setter).append('(').append(literal(message)).append(");\n");
+        }
+    }
+
+    private String messageLiteral(String message) {
+        return message.isEmpty() ? "null" : literal(message);
+    }
+
+    private String literal(String value) {
+        return processingEnv.getElementUtils().getConstantExpression(value);
+    }
+
+    private void error(Element element, String message) {
+        Messager messager = processingEnv.getMessager();
+        messager.printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    /**
+     * A node of the sub-command tree of one command, merged from the paths of its methods.
+     */
+    private final class Node {
+
+        private final String name;
+        private final String argumentType;
+        private final Map<String, ExecutableElement> aliases = new LinkedHashMap<>();
+        private final Map<String, Node> children = new LinkedHashMap<>();
+
+        private String executor;
+
+        private Node(String name, String argumentType) {
+            this.name = name;
+            this.argumentType = argumentType;
+        }
+
+        /**
+         * Adds an alias declared by a method, ignoring it if it repeats the name or another alias of this node.
+         */
+        private void addAlias(String alias, ExecutableElement method) {
+            if (alias.equalsIgnoreCase(name)) return;
+            for (String existing : aliases.keySet()) {
+                if (existing.equalsIgnoreCase(alias)) return;
+            }
+            aliases.put(alias, method);
+        }
+
+        private Node child(String key, Supplier<Node> factory) {
+            return children.computeIfAbsent(key, ignored -> factory.get());
+        }
+
+        private void write(StringBuilder out, String indent) {
+            out.append(COMMAND_PACKAGE).append("SubCommand.");
+            if (argumentType == null) {
+                out.append("literal(").append(literal(name)).append(')');
+            } else {
+                out.append("argument(").append(literal(name)).append(", ").append(COMMAND_PACKAGE)
+                        .append("ArgumentType.").append(argumentType).append(')');
+            }
+            for (String alias : aliases.keySet()) {
+                out.append(".alias(").append(literal(alias)).append(')');
+            }
+            for (Node child : children.values()) {
+                out.append("\n").append(indent).append("        .then(");
+                child.write(out, indent + "        ");
+                out.append(')');
+            }
+            if (executor != null) {
+                out.append("\n").append(indent).append("        .onExecute(execution -> ").append(executor).append(')');
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.github.fotohh.command.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares a method of a {@link Command} class as the executor of a sub-command.
+ * The first parameter of the method must be a {@link com.github.fotohh.command.CommandExecution}, every
+ * following parameter must be annotated with {@link Arg} and is bound from the arguments after the path.
+ * A method with an empty path executes the command itself.
+ *
+ * @since 3.1.0
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.METHOD)
+public @interface SubCommand {
+
+    /**
+     * @return The literal path of the sub-command, separated by spaces (i.e. {@code "party invite"}).
+     */
+    String value() default "";
+
+    /**
+     * @return Aliases of the last literal of the path.
+     */
+    String[] aliases() default {};
+}
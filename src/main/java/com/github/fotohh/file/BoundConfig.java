@@ -0,0 +1,115 @@
+package com.github.fotohh.file;
+
+import java.util.List;
+
+/**
+ * The values of a {@link Defaults} enum bound by a {@link ConfigSchema}. The values are converted and checked
+ * when they are bound, so reading one is an array access without lookups or casts. A BoundConfig never changes;
+ * a {@link ConfigBinding} binds the configuration again after it is reloaded.
+ *
+ * @param <E> the Defaults enum
+ */
+public final class BoundConfig<E extends Enum<E> & Defaults> {
+
+    private final Class<E> enumClass;
+    private final ConfigSchema.Type[] types;
+    private final Object[] values;
+    private final long[] numbers;
+
+    BoundConfig(Class<E> enumClass, ConfigSchema.Type[] types, Object[] values, long[] numbers) {
+        this.enumClass = enumClass;
+        this.types = types;
+        this.values = values;
+        this.numbers = numbers;
+    }
+
+    /**
+     * Gets the value of a constant declared as {@link ConfigSchema.Type#INTEGER}.
+     * @param key the constant
+     * @return the value
+     */
+    public int getInt(E key) {
+        return (int) number(key, ConfigSchema.Type.INTEGER);
+    }
+
+    /**
+     * Gets the value of a constant declared as {@link ConfigSchema.Type#LONG} or {@link ConfigSchema.Type#INTEGER}.
+     * @param key the constant
+     * @return the value
+     */
+    public long getLong(E key) {
+        int index = key.ordinal();
+        if (types[index] == ConfigSchema.Type.INTEGER) return numbers[index];
+        return number(key, ConfigSchema.Type.LONG);
+    }
+
+    /**
+     * Gets the value of a constant declared as {@link ConfigSchema.Type#DECIMAL}.
+     * @param key the constant
+     * @return the value
+     */
+    public double getDouble(E key) {
+        return Double.longBitsToDouble(number(key, ConfigSchema.Type.DECIMAL));
+    }
+
+    /**
+     * Gets the value of a constant declared as {@link ConfigSchema.Type#BOOLEAN}.
+     * @param key the constant
+     * @return the value
+     */
+    public boolean getBoolean(E key) {
+        return number(key, ConfigSchema.Type.BOOLEAN) != 0;
+    }
+
+    /**
+     * Gets the value of a constant declared as {@link ConfigSchema.Type#STRING}.
+     * @param key the constant
+     * @return the value
+     */
+    public String getString(E key) {
+        return (String) value(key, ConfigSchema.Type.STRING);
+    }
+
+    /**
+     * Gets the value of a constant declared as {@link ConfigSchema.Type#STRING_LIST}.
+     * @param key the constant
+     * @return the unmodifiable list
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> getStringList(E key) {
+        return (List<String>) value(key, ConfigSchema.Type.STRING_LIST);
+    }
+
+    /**
+     * Gets the value of a constant of any type.
+     * @param key the constant
+     * @return the value, boxed if it is a number or boolean
+     */
+    public Object get(E key) {
+        return values[key.ordinal()];
+    }
+
+    /**
+     * Gets the enum the values were bound from.
+     * @return the class of the Defaults enum
+     */
+    public Class<E> getEnumClass() {
+        return enumClass;
+    }
+
+    private long number(E key, ConfigSchema.Type type) {
+        int index = key.ordinal();
+        if (types[index] != type) throw wrongType(key, type);
+        return numbers[index];
+    }
+
+    private Object value(E key, ConfigSchema.Type type) {
+        int index = key.ordinal();
+        if (types[index] != type) throw wrongType(key, type);
+        return values[index];
+    }
+
+    private IllegalArgumentException wrongType(E key, ConfigSchema.Type type) {
+        return new IllegalArgumentException(key + " is bound as " + types[key.ordinal()] + ", not " + type + ".");
+    }
+}
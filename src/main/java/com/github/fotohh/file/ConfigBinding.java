@@ -0,0 +1,47 @@
+package com.github.fotohh.file;
+
+/**
+ * The values of a {@link YMLFile} bound by a {@link ConfigSchema}, bound again whenever the file is reloaded
+ * by {@link YMLFile#reload()} or hot reloading. Created by {@link YMLFile#bind(ConfigSchema)}.
+ * <p>
+ * Every reload replaces the {@link BoundConfig} as a whole, so read it once with {@link #get()} to read several
+ * values that belong together. If the reloaded configuration is invalid, the previous values are kept.
+ *
+ * @param <E> the Defaults enum
+ */
+public final class ConfigBinding<E extends Enum<E> & Defaults> {
+
+    private final YMLFile file;
+    private final ConfigSchema<E> schema;
+    private volatile BoundConfig<E> bound;
+
+    ConfigBinding(YMLFile file, ConfigSchema<E> schema) {
+        this.file = file;
+        this.schema = schema;
+        this.bound = schema.bind(file);
+    }
+
+    /**
+     * Gets the values bound from the last valid configuration.
+     * @return the bound values
+     */
+    public BoundConfig<E> get() {
+        return bound;
+    }
+
+    /**
+     * Gets the schema the values are bound by.
+     * @return the schema
+     */
+    public ConfigSchema<E> getSchema() {
+        return schema;
+    }
+
+    /**
+     * Binds the current configuration of the file. The previous values are kept if it is invalid.
+     * @throws ConfigValidationException if any value is invalid
+     */
+    void rebind() {
+        bound = schema.bind(file);
+    }
+}
@@ -0,0 +1,260 @@
+package com.github.fotohh.file;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Reads and writes the binary cache used by {@link LoadMode#CACHED}. The cache holds the parsed tree of a
+ * YAML file, including its comments, so it can be loaded without running the YAML parser.
+ * <p>
+ * The layout is a header of the magic number, the format version, the size and CRC32 of the YAML file it was
+ * made from, the length of the payload and its CRC32, followed by the payload. Strings are length-prefixed UTF-8.
+ * A cache is only used if the YAML file still has the recorded size and CRC32 and the checksum of the payload
+ * matches; otherwise the YAML file is parsed and the cache rewritten. The YAML file is compared by its contents
+ * rather than its last modified time, since edits within the timestamp granularity or tools that restore it would
+ * go unnoticed, and checksumming the file is still much cheaper than parsing it.
+ * <p>
+ * Only sections, lists, Strings, numbers, booleans and nulls can be cached. Files holding other values,
+ * such as serialized items, are always parsed and no cache is written for them.
+ */
+final class ConfigCache {
+
+    private static final int MAGIC = 0x47534843;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4 + 8;
+
+    private static final byte NULL = 0;
+    private static final byte SECTION = 1;
+    private static final byte LIST = 2;
+    private static final byte STRING = 3;
+    private static final byte INT = 4;
+    private static final byte LONG = 5;
+    private static final byte DOUBLE = 6;
+    private static final byte BOOLEAN = 7;
+
+    private ConfigCache() {
+    }
+
+    /**
+     * Gets the cache file of a YAML file, stored next to it.
+     */
+    static File of(File source) {
+        return new File(source.getParentFile(), source.getName() + ".bin");
+    }
+
+    /**
+     * Loads the cache of the source file into the configuration.
+     *
+     * @param sourceSize     the size of the source file, in bytes.
+     * @param sourceChecksum the CRC32 of the contents of the source file.
+     * @return false if there is no valid cache for the source file. The configuration must then be loaded
+     * from the source file, since it may already have been cleared.
+     */
+    static boolean read(File source, long sourceSize, long sourceChecksum, Yaml config) {
+        try {
+            byte[] data = Files.readAllBytes(of(source).toPath());
+            if (data.length < HEADER_SIZE) return false;
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return false;
+            if (in.readLong() != sourceSize || in.readLong() != sourceChecksum) return false;
+            int length = in.readInt();
+            long checksum = in.readLong();
+            if (length != data.length - HEADER_SIZE) return false;
+            CRC32 crc = new CRC32();
+            crc.update(data, HEADER_SIZE, length);
+            if (crc.getValue() != checksum) return false;
+
+            config.loadFromString("");
+            config.options().setHeader(readStrings(in));
+            config.options().setFooter(readStrings(in));
+            readSection(in, config);
+            return true;
+        } catch (IOException | InvalidConfigurationException | RuntimeException e) {
+            // A missing, corrupt or unreadable cache is regenerated from the YAML file.
+            return false;
+        }
+    }
+
+    /**
+     * Writes the cache of the source file, if every value of the configuration can be cached.
+     *
+     * @param sourceSize     the size of the contents the configuration was read from or written to, in bytes.
+     * @param sourceChecksum the CRC32 of those contents.
+     */
+    static void write(File source, long sourceSize, long sourceChecksum, Yaml config) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(8192);
+        DataOutputStream out = new DataOutputStream(payload);
+        writeStrings(out, config.options().getHeader());
+        writeStrings(out, config.options().getFooter());
+        if (!writeSection(out, config)) {
+            Files.deleteIfExists(of(source).toPath());
+            return;
+        }
+        out.flush();
+        byte[] bytes = payload.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+
+        ByteArrayOutputStream file = new ByteArrayOutputStream(HEADER_SIZE + bytes.length);
+        DataOutputStream header = new DataOutputStream(file);
+        header.writeInt(MAGIC);
+        header.writeInt(VERSION);
+        header.writeLong(sourceSize);
+        header.writeLong(sourceChecksum);
+        header.writeInt(bytes.length);
+        header.writeLong(crc.getValue());
+        header.write(bytes);
+        header.flush();
+
+        Path target = of(source).toPath().toAbsolutePath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.write(temp, file.toByteArray());
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static boolean writeSection(DataOutputStream out, ConfigurationSection section) throws IOException {
+        List<String> keys = new ArrayList<>(section.getKeys(false));
+        out.writeInt(keys.size());
+        for (String key : keys) {
+            writeString(out, key);
+            writeStrings(out, section.getComments(key));
+            writeStrings(out, section.getInlineComments(key));
+            if (!writeValue(out, section.get(key))) return false;
+        }
+        return true;
+    }
+
+    private static boolean writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof ConfigurationSection) {
+            out.writeByte(SECTION);
+            return writeSection(out, (ConfigurationSection) value);
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            out.writeByte(LIST);
+            out.writeInt(list.size());
+            for (Object element : list) {
+                if (!writeValue(out, element)) return false;
+            }
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(INT);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private static void readSection(DataInputStream in, ConfigurationSection section) throws IOException {
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            String key = readString(in);
+            List<String> comments = readStrings(in);
+            List<String> inlineComments = readStrings(in);
+            byte type = in.readByte();
+            if (type == SECTION) {
+                readSection(in, section.createSection(key));
+            } else {
+                section.set(key, readValue(in, type));
+            }
+            if (!comments.isEmpty()) section.setComments(key, comments);
+            if (!inlineComments.isEmpty()) section.setInlineComments(key, inlineComments);
+        }
+    }
+
+    private static Object readValue(DataInputStream in, byte type) throws IOException {
+        switch (type) {
+            case NULL:
+                return null;
+            case LIST:
+                int size = in.readInt();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in, in.readByte()));
+                }
+                return list;
+            case STRING:
+                return readString(in);
+            case INT:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case DOUBLE:
+                return in.readDouble();
+            case BOOLEAN:
+                return in.readBoolean();
+            default:
+                // Sections inside lists are not produced by the YAML parser, so they are not cached either.
+                throw new IOException("Unknown value type " + type);
+        }
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> strings) throws IOException {
+        out.writeInt(strings.size());
+        for (String string : strings) {
+            writeString(out, string);
+        }
+    }
+
+    private static List<String> readStrings(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        List<String> strings = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            strings.add(readString(in));
+        }
+        return strings;
+    }
+
+    /**
+     * Writes a String as its UTF-8 length and bytes, or a length of -1 for null, which comment lists use for blank lines.
+     */
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        if (string == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
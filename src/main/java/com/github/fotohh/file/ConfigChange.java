@@ -0,0 +1,77 @@
+package com.github.fotohh.file;
+
+/**
+ * A value of a {@link YMLFile} that changed when the file was reloaded from disk.
+ * Changes are reported per value, so a section that was added or removed is reported as one change
+ * for every value inside it.
+ */
+public final class ConfigChange {
+
+    /**
+     * How a value changed.
+     */
+    public enum Type {
+        ADDED,
+        REMOVED,
+        MODIFIED
+    }
+
+    private final String path;
+    private final Type type;
+    private final Object oldValue;
+    private final Object newValue;
+
+    ConfigChange(String path, Type type, Object oldValue, Object newValue) {
+        this.path = path;
+        this.type = type;
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+    }
+
+    /**
+     * Gets the path of the value.
+     * @return the full path, separated by dots
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Gets how the value changed.
+     * @return the type of the change
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets the value before the reload.
+     * @return the old value, or null if it was added
+     */
+    public Object getOldValue() {
+        return oldValue;
+    }
+
+    /**
+     * Gets the value after the reload.
+     * @return the new value, or null if it was removed
+     */
+    public Object getNewValue() {
+        return newValue;
+    }
+
+    /**
+     * Checks if this change is at the given path or below it.
+     * @param path the path to check, or an empty String for every path
+     * @return true if the change is at or below the path
+     */
+    public boolean isUnder(String path) {
+        return path.isEmpty() || this.path.equals(path)
+                || (this.path.startsWith(path) && this.path.charAt(path.length()) == '.');
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + path + ": " + oldValue + " -> " + newValue;
+    }
+}
@@ -0,0 +1,366 @@
+package com.github.fotohh.file;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Declares the type and allowed values of every constant of a {@link Defaults} enum, so a configuration
+ * can be checked and bound into a {@link BoundConfig} in one pass when it is loaded. The type of a constant
+ * that is not declared is taken from its default value. Bind the schema with {@link YMLFile#bind(ConfigSchema)}
+ * to bind the configuration again whenever the file is reloaded.
+ * <pre>{@code
+ * ConfigSchema<Settings> schema = ConfigSchema.of(Settings.class)
+ *         .integer(Settings.MAX_HOMES, 1, 100)
+ *         .check(Settings.PREFIX, value -> !value.toString().isEmpty(), "cannot be empty")
+ *         .build();
+ * ConfigBinding<Settings> settings = file.bind(schema);
+ * int maxHomes = settings.get().getInt(Settings.MAX_HOMES);
+ * }</pre>
+ *
+ * @param <E> the Defaults enum
+ */
+public final class ConfigSchema<E extends Enum<E> & Defaults> {
+
+    /**
+     * The type a value is bound as.
+     */
+    public enum Type {
+        STRING,
+        /**
+         * A whole number that fits in an int.
+         */
+        INTEGER,
+        /**
+         * A whole number that fits in a long.
+         */
+        LONG,
+        DECIMAL,
+        BOOLEAN,
+        STRING_LIST,
+        /**
+         * Any value, bound as it is.
+         */
+        ANY
+    }
+
+    private final Class<E> enumClass;
+    private final E[] constants;
+    private final Type[] types;
+    // Bounds of whole numbers, kept as longs so bounds beyond 2^53 stay exact, and of decimals.
+    private final long[] minWhole;
+    private final long[] maxWhole;
+    private final double[] min;
+    private final double[] max;
+    private final List<List<Check>> checks;
+
+    private ConfigSchema(Builder<E> builder) {
+        this.enumClass = builder.enumClass;
+        this.constants = builder.constants;
+        this.types = builder.types.clone();
+        this.minWhole = builder.minWhole.clone();
+        this.maxWhole = builder.maxWhole.clone();
+        this.min = builder.min.clone();
+        this.max = builder.max.clone();
+        List<List<Check>> checks = new ArrayList<>(builder.checks.size());
+        for (List<Check> keyChecks : builder.checks) {
+            checks.add(keyChecks.isEmpty() ? Collections.emptyList() : new ArrayList<>(keyChecks));
+        }
+        this.checks = checks;
+    }
+
+    /**
+     * Starts a schema for a Defaults enum.
+     * @param enumClass the class of the enum
+     * @param <E> the Defaults enum
+     * @return the builder of the schema
+     */
+    public static <E extends Enum<E> & Defaults> Builder<E> of(Class<E> enumClass) {
+        return new Builder<>(enumClass);
+    }
+
+    /**
+     * Gets the type a constant is bound as.
+     * @param key the constant
+     * @return the declared or inferred type
+     */
+    public Type getType(E key) {
+        return types[key.ordinal()];
+    }
+
+    /**
+     * Binds the configuration of a file, see {@link #bind(ConfigurationSection, String)}.
+     * @param file the file to bind
+     * @return the bound values
+     * @throws ConfigValidationException if any value is invalid
+     */
+    public BoundConfig<E> bind(YMLFile file) {
+        return bind(file.getConfig(), file.getPath());
+    }
+
+    /**
+     * Reads, converts and checks the value of every constant. Missing values take the default value of
+     * their constant. All invalid values are reported together.
+     * @param config the configuration to bind
+     * @param source the name of the configuration used in the error message
+     * @return the bound values
+     * @throws ConfigValidationException if any value is invalid
+     */
+    public BoundConfig<E> bind(ConfigurationSection config, String source) {
+        int size = constants.length;
+        Object[] values = new Object[size];
+        long[] numbers = new long[size];
+        List<String> errors = new ArrayList<>();
+        for (E key : constants) {
+            int index = key.ordinal();
+            String path = key.getPath();
+            Object raw = config.get(path);
+            if (raw == null) raw = key.getDefaultValue();
+            String error = convert(index, raw, values, numbers);
+            if (error == null) {
+                for (Check check : checks.get(index)) {
+                    error = check.test(values[index]);
+                    if (error != null) break;
+                }
+            }
+            if (error != null) errors.add(path + " (" + raw + ") " + error);
+        }
+        if (!errors.isEmpty()) throw new ConfigValidationException(source, errors);
+        return new BoundConfig<>(enumClass, types, values, numbers);
+    }
+
+    /**
+     * Converts a value into its slot.
+     * @return the error, or null if the value is valid
+     */
+    private String convert(int index, Object raw, Object[] values, long[] numbers) {
+        switch (types[index]) {
+            case STRING:
+                if (raw == null || raw instanceof ConfigurationSection || raw instanceof List) return "is not a String";
+                values[index] = raw.toString();
+                return null;
+            case INTEGER:
+            case LONG:
+                if (!(raw instanceof Integer || raw instanceof Long || raw instanceof Short || raw instanceof Byte)) return "is not a whole number";
+                long integer = ((Number) raw).longValue();
+                if (integer < minWhole[index] || integer > maxWhole[index]) return "is not between " + minWhole[index] + " and " + maxWhole[index];
+                numbers[index] = integer;
+                if (types[index] == Type.INTEGER) values[index] = (int) integer;
+                else values[index] = integer;
+                return null;
+            case DECIMAL:
+                if (!(raw instanceof Number)) return "is not a number";
+                double decimal = ((Number) raw).doubleValue();
+                if (decimal < min[index] || decimal > max[index]) return "is not between " + min[index] + " and " + max[index];
+                numbers[index] = Double.doubleToRawLongBits(decimal);
+                values[index] = decimal;
+                return null;
+            case BOOLEAN:
+                if (!(raw instanceof Boolean)) return "is not true or false";
+                numbers[index] = (Boolean) raw ? 1 : 0;
+                values[index] = raw;
+                return null;
+            case STRING_LIST:
+                if (!(raw instanceof List)) return "is not a list";
+                List<String> list = new ArrayList<>(((List<?>) raw).size());
+                for (Object element : (List<?>) raw) {
+                    if (element == null || element instanceof ConfigurationSection || element instanceof List) return "is not a list of Strings";
+                    list.add(element.toString());
+                }
+                values[index] = Collections.unmodifiableList(list);
+                return null;
+            default:
+                values[index] = raw;
+                return null;
+        }
+    }
+
+    private static final class Check {
+
+        private final Predicate<Object> predicate;
+        private final String message;
+
+        private Check(Predicate<Object> predicate, String message) {
+            this.predicate = predicate;
+            this.message = message;
+        }
+
+        /**
+         * @return the error, or null if the value passed the check
+         */
+        private String test(Object value) {
+            try {
+                return predicate.test(value) ? null : message;
+            } catch (RuntimeException e) {
+                return message + " (the check failed: " + e + ")";
+            }
+        }
+    }
+
+    /**
+     * Builds a {@link ConfigSchema}.
+     * @param <E> the Defaults enum
+     */
+    public static final class Builder<E extends Enum<E> & Defaults> {
+
+        private final Class<E> enumClass;
+        private final E[] constants;
+        private final Type[] types;
+        private final long[] minWhole;
+        private final long[] maxWhole;
+        private final double[] min;
+        private final double[] max;
+        private final List<List<Check>> checks;
+
+        private Builder(Class<E> enumClass) {
+            this.enumClass = enumClass;
+            this.constants = enumClass.getEnumConstants();
+            this.types = new Type[constants.length];
+            this.minWhole = new long[constants.length];
+            this.maxWhole = new long[constants.length];
+            this.min = new double[constants.length];
+            this.max = new double[constants.length];
+            this.checks = new ArrayList<>(constants.length);
+            for (E key : constants) {
+                type(key, infer(key.getDefaultValue()));
+                checks.add(new ArrayList<>());
+            }
+        }
+
+        private static Type infer(Object value) {
+            if (value instanceof String) return Type.STRING;
+            if (value instanceof Integer || value instanceof Short || value instanceof Byte) return Type.INTEGER;
+            if (value instanceof Long) return Type.LONG;
+            if (value instanceof Number) return Type.DECIMAL;
+            if (value instanceof Boolean) return Type.BOOLEAN;
+            if (value instanceof List) return Type.STRING_LIST;
+            return Type.ANY;
+        }
+
+        /**
+         * Declares the type of a constant. Numbers may take any value of their type.
+         * @param key the constant
+         * @param type the type its value is bound as
+         * @return this builder
+         */
+        public Builder<E> type(E key, Type type) {
+            int index = key.ordinal();
+            types[index] = type;
+            switch (type) {
+                case INTEGER:
+                    minWhole[index] = Integer.MIN_VALUE;
+                    maxWhole[index] = Integer.MAX_VALUE;
+                    break;
+                case LONG:
+                    minWhole[index] = Long.MIN_VALUE;
+                    maxWhole[index] = Long.MAX_VALUE;
+                    break;
+                default:
+                    min[index] = Double.NEGATIVE_INFINITY;
+                    max[index] = Double.POSITIVE_INFINITY;
+            }
+            return this;
+        }
+
+        /**
+         * Declares a constant as a String.
+         * @param key the constant
+         * @return this builder
+         */
+        public Builder<E> string(E key) {
+            return type(key, Type.STRING);
+        }
+
+        /**
+         * Declares a constant as an int between the bounds, inclusive.
+         * @param key the constant
+         * @param min the smallest allowed value
+         * @param max the largest allowed value
+         * @return this builder
+         */
+        public Builder<E> integer(E key, int min, int max) {
+            return wholeNumber(key, Type.INTEGER, min, max);
+        }
+
+        /**
+         * Declares a constant as a long between the bounds, inclusive, for whole numbers that may not fit in an int.
+         * @param key the constant
+         * @param min the smallest allowed value
+         * @param max the largest allowed value
+         * @return this builder
+         */
+        public Builder<E> longInteger(E key, long min, long max) {
+            return wholeNumber(key, Type.LONG, min, max);
+        }
+
+        private Builder<E> wholeNumber(E key, Type type, long min, long max) {
+            if (min > max) {
+                throw new IllegalArgumentException("The minimum of " + key + " cannot be larger than its maximum.");
+            }
+            type(key, type);
+            this.minWhole[key.ordinal()] = min;
+            this.maxWhole[key.ordinal()] = max;
+            return this;
+        }
+
+        /**
+         * Declares a constant as a number between the bounds, inclusive.
+         * @param key the constant
+         * @param min the smallest allowed value
+         * @param max the largest allowed value
+         * @return this builder
+         */
+        public Builder<E> decimal(E key, double min, double max) {
+            if (min > max) {
+                throw new IllegalArgumentException("The minimum of " + key + " cannot be larger than its maximum.");
+            }
+            type(key, Type.DECIMAL);
+            this.min[key.ordinal()] = min;
+            this.max[key.ordinal()] = max;
+            return this;
+        }
+
+        /**
+         * Declares a constant as true or false.
+         * @param key the constant
+         * @return this builder
+         */
+        public Builder<E> bool(E key) {
+            return type(key, Type.BOOLEAN);
+        }
+
+        /**
+         * Declares a constant as a list of Strings.
+         * @param key the constant
+         * @return this builder
+         */
+        public Builder<E> stringList(E key) {
+            return type(key, Type.STRING_LIST);
+        }
+
+        /**
+         * Adds a check to a constant, run on its value after it is converted to its type: an Integer for
+         * {@link Type#INTEGER}, a Long for {@link Type#LONG} and a Double for {@link Type#DECIMAL}.
+         * A check that throws an exception reports the value as invalid.
+         * @param key the constant
+         * @param check the check, returning false if the value is invalid
+         * @param message the error reported if the check fails, such as "must be positive"
+         * @return this builder
+         */
+        public Builder<E> check(E key, Predicate<Object> check, String message) {
+            checks.get(key.ordinal()).add(new Check(check, message));
+            return this;
+        }
+
+        /**
+         * Builds the schema. The builder can be changed and built again afterwards.
+         * @return the schema
+         */
+        public ConfigSchema<E> build() {
+            return new ConfigSchema<>(this);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.github.fotohh.file;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable copy of a configuration tree, published by {@link Yaml#publish()}. A snapshot never changes
+ * after it is created, so it can be read from any thread without locking while the main thread keeps
+ * changing the configuration it was copied from.
+ * <p>
+ * Lists are copied and unmodifiable; other values are shared with the configuration, so they should be
+ * immutable values such as Strings and numbers.
+ */
+public final class ConfigSnapshot {
+
+    static final ConfigSnapshot EMPTY = new ConfigSnapshot(Collections.emptyMap(), 0);
+
+    private final Map<String, Object> values;
+    private final int version;
+
+    private ConfigSnapshot(Map<String, Object> values, int version) {
+        this.values = values;
+        this.version = version;
+    }
+
+    /**
+     * Copies a configuration section. Must be called on the thread that changes the section.
+     */
+    static ConfigSnapshot of(ConfigurationSection section, int version) {
+        Set<String> keys = section.getKeys(false);
+        Map<String, Object> values = new LinkedHashMap<>((int) (keys.size() / 0.75f) + 1);
+        for (String key : keys) {
+            values.put(key, copy(section.get(key), version));
+        }
+        return new ConfigSnapshot(Collections.unmodifiableMap(values), version);
+    }
+
+    private static Object copy(Object value, int version) {
+        if (value instanceof ConfigurationSection) return of((ConfigurationSection) value, version);
+        if (value instanceof List) {
+            List<Object> list = new ArrayList<>(((List<?>) value).size());
+            for (Object element : (List<?>) value) {
+                list.add(copy(element, version));
+            }
+            return Collections.unmodifiableList(list);
+        }
+        return value;
+    }
+
+    /**
+     * Gets the value at a path.
+     * @param path the path, separated by dots
+     * @return the value, a ConfigSnapshot for a section, or null if the path is not set
+     */
+    public Object get(String path) {
+        ConfigSnapshot snapshot = this;
+        int start = 0;
+        int dot;
+        while ((dot = path.indexOf('.', start)) >= 0) {
+            Object child = snapshot.values.get(path.substring(start, dot));
+            if (!(child instanceof ConfigSnapshot)) return null;
+            snapshot = (ConfigSnapshot) child;
+            start = dot + 1;
+        }
+        return snapshot.values.get(start == 0 ? path : path.substring(start));
+    }
+
+    public Object get(String path, Object def) {
+        Object value = get(path);
+        return value != null ? value : def;
+    }
+
+    public boolean contains(String path) {
+        return get(path) != null;
+    }
+
+    public String getString(String path) {
+        Object value = get(path);
+        return value != null && !(value instanceof ConfigSnapshot) ? value.toString() : null;
+    }
+
+    public String getString(String path, String def) {
+        String value = getString(path);
+        return value != null ? value : def;
+    }
+
+    public int getInt(String path) {
+        return getInt(path, 0);
+    }
+
+    public int getInt(String path, int def) {
+        Object value = get(path);
+        return value instanceof Number ? ((Number) value).intValue() : def;
+    }
+
+    public long getLong(String path, long def) {
+        Object value = get(path);
+        return value instanceof Number ? ((Number) value).longValue() : def;
+    }
+
+    public double getDouble(String path) {
+        return getDouble(path, 0);
+    }
+
+    public double getDouble(String path, double def) {
+        Object value = get(path);
+        return value instanceof Number ? ((Number) value).doubleValue() : def;
+    }
+
+    public boolean getBoolean(String path) {
+        return getBoolean(path, false);
+    }
+
+    public boolean getBoolean(String path, boolean def) {
+        Object value = get(path);
+        return value instanceof Boolean ? (Boolean) value : def;
+    }
+
+    /**
+     * Gets a list of Strings.
+     * @param path the path of the list
+     * @return the elements as Strings, or an empty list if the path is not a list
+     */
+    public List<String> getStringList(String path) {
+        Object value = get(path);
+        if (!(value instanceof List)) return Collections.emptyList();
+        List<String> list = new ArrayList<>(((List<?>) value).size());
+        for (Object element : (List<?>) value) {
+            if (element != null) list.add(element.toString());
+        }
+        return list;
+    }
+
+    /**
+     * Gets a section.
+     * @param path the path of the section
+     * @return the section, or null if the path is not a section
+     */
+    public ConfigSnapshot getSection(String path) {
+        Object value = get(path);
+        return value instanceof ConfigSnapshot ? (ConfigSnapshot) value : null;
+    }
+
+    /**
+     * Gets the keys directly below this section.
+     * @return the keys in the order of the configuration
+     */
+    public Set<String> getKeys() {
+        return values.keySet();
+    }
+
+    /**
+     * Gets the values directly below this section.
+     * @return an unmodifiable map of the keys to their values, ConfigSnapshots for sections
+     */
+    public Map<String, Object> getValues() {
+        return values;
+    }
+
+    /**
+     * Gets the modification count of the configuration when this snapshot was taken,
+     * see {@link Yaml#getModCount()}.
+     * @return the version of the snapshot
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    @Override
+    public String toString() {
+        return values.toString();
+    }
+}
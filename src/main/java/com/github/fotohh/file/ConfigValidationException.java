@@ -0,0 +1,26 @@
+package com.github.fotohh.file;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown when a configuration does not match its {@link ConfigSchema}. Holds every error found,
+ * not only the first one.
+ */
+public class ConfigValidationException extends RuntimeException {
+
+    private final List<String> errors;
+
+    ConfigValidationException(String source, List<String> errors) {
+        super("Invalid configuration " + source + ":\n - " + String.join("\n - ", errors));
+        this.errors = Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * Gets the errors found in the configuration.
+     * @return one message per invalid value
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+}
@@ -0,0 +1,211 @@
+package com.github.fotohh.file;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+
+/**
+ * Watches the directories of the {@link YMLFile}s that enabled hot reloading. A changed file is read and
+ * parsed on the watcher thread once it has been quiet for {@link #SETTLE_MILLIS} milliseconds, since editors
+ * often write a file in several steps. The parsed configuration is then handed to the main thread,
+ * where it is diffed against the current one and swapped in.
+ * <p>
+ * The watcher thread is started with the first watched file and stopped when the last one is unwatched.
+ */
+final class ConfigWatcher {
+
+    static final long SETTLE_MILLIS = 100;
+
+    private static ConfigWatcher instance;
+
+    private final WatchService service;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "GeneralSpigotHelper-YMLFile-Reloader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<Path, WatchKey> directories = new HashMap<>();
+    private final Map<Path, YMLFile> files = new HashMap<>();
+    private final Map<Path, ScheduledFuture<?>> pending = new HashMap<>();
+
+    private ConfigWatcher() throws IOException {
+        this.service = FileSystems.getDefault().newWatchService();
+        Thread thread = new Thread(this::poll, "GeneralSpigotHelper-YMLFile-Watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    static synchronized void watch(YMLFile file) throws IOException {
+        if (instance == null) instance = new ConfigWatcher();
+        instance.register(file);
+    }
+
+    static synchronized void unwatch(YMLFile file) {
+        if (instance != null && instance.unregister(file)) {
+            instance.close();
+            instance = null;
+        }
+    }
+
+    private void register(YMLFile file) throws IOException {
+        Path path = file.toPath().toAbsolutePath().normalize();
+        Path directory = path.getParent();
+        if (!directories.containsKey(directory)) {
+            directories.put(directory, directory.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY));
+        }
+        files.put(path, file);
+    }
+
+    /**
+     * @return true if no files are watched anymore.
+     */
+    private boolean unregister(YMLFile file) {
+        Path path = file.toPath().toAbsolutePath().normalize();
+        if (files.get(path) != file) return files.isEmpty();
+        files.remove(path);
+        synchronized (pending) {
+            ScheduledFuture<?> task = pending.remove(path);
+            if (task != null) task.cancel(false);
+        }
+        Path directory = path.getParent();
+        if (files.keySet().stream().noneMatch(other -> other.getParent().equals(directory))) {
+            WatchKey key = directories.remove(directory);
+            if (key != null) key.cancel();
+        }
+        return files.isEmpty();
+    }
+
+    private void close() {
+        executor.shutdownNow();
+        try {
+            service.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void poll() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = service.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path directory = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    synchronized (ConfigWatcher.class) {
+                        files.keySet().stream().filter(path -> path.getParent().equals(directory)).forEach(this::schedule);
+                    }
+                    continue;
+                }
+                schedule(directory.resolve((Path) event.context()));
+            }
+            key.reset();
+        }
+    }
+
+    private void schedule(Path path) {
+        synchronized (ConfigWatcher.class) {
+            if (!files.containsKey(path)) return;
+        }
+        synchronized (pending) {
+            ScheduledFuture<?> task = pending.get(path);
+            if (task != null) task.cancel(false);
+            pending.put(path, executor.schedule(() -> reload(path), SETTLE_MILLIS, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private void reload(Path path) {
+        synchronized (pending) {
+            pending.remove(path);
+        }
+        YMLFile file;
+        synchronized (ConfigWatcher.class) {
+            file = files.get(path);
+        }
+        if (file == null) return;
+        try {
+            byte[] data = Files.readAllBytes(path);
+            long checksum = checksum(data);
+            // Our own saves change the file too; there is nothing to reload if it holds what was written last.
+            if (checksum == file.getChecksum()) return;
+            Yaml yaml = new Yaml();
+            yaml.loadFromString(new String(data, StandardCharsets.UTF_8));
+            file.reloaded(yaml, checksum);
+        } catch (NoSuchFileException ignored) {
+            // Replaced by a move; the create event of the new file schedules another reload.
+        } catch (IOException | InvalidConfigurationException e) {
+            Bukkit.getLogger().log(Level.WARNING, "Unable to reload file " + path + ", keeping the loaded configuration.", e);
+        }
+    }
+
+    static long checksum(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return crc.getValue();
+    }
+
+    /**
+     * Computes the values that differ between two configurations. Sections are compared key by key,
+     * and a value replaced by a section, or the other way around, is reported as removed and added.
+     *
+     * @return The changes, in the order of the keys of the new configuration followed by the removed keys.
+     */
+    static List<ConfigChange> diff(ConfigurationSection from, ConfigurationSection to) {
+        List<ConfigChange> changes = new ArrayList<>();
+        diff(from, to, "", changes);
+        return changes;
+    }
+
+    private static void diff(ConfigurationSection from, ConfigurationSection to, String prefix, List<ConfigChange> changes) {
+        Set<String> keys = new LinkedHashSet<>();
+        if (to != null) keys.addAll(to.getKeys(false));
+        if (from != null) keys.addAll(from.getKeys(false));
+        for (String key : keys) {
+            String path = prefix + key;
+            Object oldValue = from != null ? from.get(key) : null;
+            Object newValue = to != null ? to.get(key) : null;
+            boolean oldSection = oldValue instanceof ConfigurationSection;
+            boolean newSection = newValue instanceof ConfigurationSection;
+            if (oldSection || newSection) {
+                if (oldValue != null && !oldSection) changes.add(new ConfigChange(path, ConfigChange.Type.REMOVED, oldValue, null));
+                diff(oldSection ? (ConfigurationSection) oldValue : null, newSection ? (ConfigurationSection) newValue : null,
+                        path + '.', changes);
+                if (newValue != null && !newSection) changes.add(new ConfigChange(path, ConfigChange.Type.ADDED, null, newValue));
+            } else if (oldValue == null) {
+                changes.add(new ConfigChange(path, ConfigChange.Type.ADDED, null, newValue));
+            } else if (newValue == null) {
+                changes.add(new ConfigChange(path, ConfigChange.Type.REMOVED, oldValue, null));
+            } else if (!Objects.equals(oldValue, newValue)) {
+                changes.add(new ConfigChange(path, ConfigChange.Type.MODIFIED, oldValue, newValue));
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.github.fotohh.file;
+
+/**
+ * How a {@link YMLFile} reads its configuration.
+ */
+public enum LoadMode {
+
+    /**
+     * Parses the whole file when it is loaded.
+     */
+    EAGER,
+
+    /**
+     * Memory-maps the file and only indexes where each top-level key starts. A top-level key is parsed
+     * the first time it, or a path below it, is accessed. List items at column 0 belong to the key above them.
+     * Files that are a list themselves, or use anchors and aliases, document markers, or flow or quoted top-level keys
+     * are parsed eagerly instead.
+     */
+    LAZY,
+
+    /**
+     * Loads a binary cache of the parsed file, stored next to it with the extension {@code .bin}, instead of
+     * parsing the YAML. The cache is only used while the file has the size and CRC32 it was made from,
+     * and it is rewritten whenever the file is parsed or saved. Files holding values other than sections,
+     * lists, Strings, numbers and booleans are always parsed.
+     */
+    CACHED
+}
@@ -1,9 +1,42 @@
 package com.github.fotohh.file;
 
+import com.github.fotohh.utility.GeneralUtility;
+import net.md_5.bungee.api.chat.BaseComponent;
+import net.md_5.bungee.api.chat.TextComponent;
+import org.bukkit.Bukkit;
 import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.plugin.Plugin;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
 
 /**
  * General class to aid in creating custom YAML files. Also parses different much needed
@@ -17,7 +50,22 @@ public class YMLFile extends File {
         return defaults != null ? defaults.getValues() : null;
     }
 
-    private final Yaml config;
+    private volatile Yaml config;
+
+    private final Object writeLock = new Object();
+    private final AtomicReference<Yaml> pendingWrite = new AtomicReference<>();
+    private final AtomicBoolean writeScheduled = new AtomicBoolean();
+    private volatile long writeBehindNanos = -1;
+
+    private final LoadMode mode;
+    private final Map<Defaults, CachedValue> cache = new ConcurrentHashMap<>();
+    private volatile int cachedModCount;
+
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final List<ConfigBinding<?>> bindings = new CopyOnWriteArrayList<>();
+    private volatile Plugin watcher;
+    private volatile long checksum = -1;
+    private final YamlWriter writer = new YamlWriter();
 
     /**
      * Creates a {@link YMLFile} from the corresponding path.
@@ -34,6 +82,18 @@ public class YMLFile extends File {
      * @param defaults defaults of the {@link YMLFile}
      */
     public YMLFile(File path, Defaults defaults) {
+        this(path, defaults, LoadMode.EAGER);
+    }
+
+    /**
+     * Creates a {@link YMLFile} from the corresponding path along with {@link Defaults},
+     * loading it with the given {@link LoadMode}. Large files that are mostly left untouched
+     * load faster and use less memory with {@link LoadMode#LAZY}.
+     * @param path The path to the file.
+     * @param defaults defaults of the {@link YMLFile}, or null
+     * @param mode how the file is read
+     */
+    public YMLFile(File path, Defaults defaults, LoadMode mode) {
         super(path.getPath());
 
         File folder = path.getParentFile();
@@ -49,24 +109,353 @@ public class YMLFile extends File {
             }
         }
         this.defaults = defaults;
+        this.mode = mode;
         this.config = new Yaml();
         try {
-            this.config.load(this);
+            load(config);
         } catch (IOException | InvalidConfigurationException e) {
             throw new RuntimeException(e);
         }
-        if(loadDefaults())
+        if(loadDefaults(config))
             save();
     }
 
+    private void load(Yaml config) throws IOException, InvalidConfigurationException {
+        if (mode == LoadMode.LAZY) {
+            config.loadLazily(this);
+        } else if (mode == LoadMode.CACHED) {
+            // The cache is checked against the same bytes that are parsed if it is stale.
+            byte[] data = Files.readAllBytes(toPath());
+            long crc = ConfigWatcher.checksum(data);
+            if (ConfigCache.read(this, data.length, crc, config)) return;
+            config.loadFromString(new String(data, StandardCharsets.UTF_8));
+            writeCache(data.length, crc, config);
+        } else {
+            config.load(this);
+        }
+    }
+
+    private void writeCache(long size, long crc, Yaml config) {
+        try {
+            ConfigCache.write(this, size, crc, config);
+        } catch (IOException e) {
+            Bukkit.getLogger().log(Level.WARNING, "Unable to write the cache of " + getPath(), e);
+        }
+    }
+
+    /**
+     * Saves the configuration to the file. In write-behind mode (see {@link #setWriteBehind(long, TimeUnit)})
+     * this only takes a snapshot of the configuration, and the file is written on a background thread.
+     */
     public void save(){
-        try{
-            config.save(this);
-        }catch (IOException e){
-            throw new RuntimeException("Unable to save file!", e);
+        if (writeBehindNanos >= 0) {
+            Yaml snapshot = snapshot();
+            Yaml previous;
+            do {
+                // A snapshot replaced before it was written passes its changed keys on to this one.
+                previous = pendingWrite.get();
+                if (previous != null) snapshot.addChanges(previous.peekChanges());
+            } while (!pendingWrite.compareAndSet(previous, snapshot));
+            if (writeScheduled.compareAndSet(false, true)) {
+                WriteBehind.EXECUTOR.schedule(this::writePending, writeBehindNanos, TimeUnit.NANOSECONDS);
+            }
+            return;
+        }
+        synchronized (writeLock) {
+            // The changes of a discarded snapshot were already taken from the configuration.
+            if (pendingWrite.getAndSet(null) != null) writer.clear();
+            try{
+                write(config, config.drainChanges());
+            }catch (IOException e){
+                writer.clear();
+                throw new RuntimeException("Unable to save file!", e);
+            }
+        }
+    }
+
+    /**
+     * Enables write-behind saving. {@link #save()} then only snapshots the configuration, and every save
+     * within the window is coalesced into one write, which serializes the last snapshot and replaces
+     * the file atomically on a background thread.
+     * <p>
+     * The writer thread does not keep the server running, so call {@link #flush()} or {@link #flushAll()}
+     * when the plugin is disabled.
+     *
+     * @param window How long to wait for more saves before writing.
+     * @param unit   The unit of the window.
+     * @return This YMLFile.
+     */
+    public YMLFile setWriteBehind(long window, TimeUnit unit) {
+        if (window < 0) {
+            throw new IllegalArgumentException("The write-behind window cannot be negative.");
+        }
+        writeBehindNanos = unit.toNanos(window);
+        WriteBehind.FILES.add(this);
+        return this;
+    }
+
+    /**
+     * Writes any pending snapshot and makes {@link #save()} write synchronously again.
+     */
+    public void disableWriteBehind() {
+        writeBehindNanos = -1;
+        flush();
+        WriteBehind.FILES.remove(this);
+    }
+
+    /**
+     * Checks if write-behind saving is enabled.
+     *
+     * @return true if saves are written on a background thread.
+     */
+    public boolean isWriteBehind() {
+        return writeBehindNanos >= 0;
+    }
+
+    /**
+     * Writes the pending snapshot, if any, on the calling thread.
+     */
+    public void flush() {
+        writePending();
+    }
+
+    /**
+     * Writes the pending snapshots of every file in write-behind mode. Call this in {@code onDisable}.
+     */
+    public static void flushAll() {
+        List<YMLFile> files;
+        synchronized (WriteBehind.FILES) {
+            files = new ArrayList<>(WriteBehind.FILES);
+        }
+        files.forEach(YMLFile::flush);
+    }
+
+    private void writePending() {
+        writeScheduled.set(false);
+        // The snapshot is taken under the lock, so an older snapshot can never overwrite a newer one.
+        synchronized (writeLock) {
+            Yaml snapshot = pendingWrite.getAndSet(null);
+            if (snapshot == null) return;
+            try {
+                write(snapshot, snapshot.peekChanges());
+            } catch (IOException e) {
+                // The text kept for the keys may not match the file anymore, so the next write serializes every key.
+                writer.clear();
+                pendingWrite.compareAndSet(null, snapshot);
+                Bukkit.getLogger().log(Level.SEVERE, "Unable to save file " + getPath() + ", retrying on the next save.", e);
+            }
+        }
+    }
+
+    /**
+     * Writes the configuration and, in {@link LoadMode#CACHED}, refreshes its cache so the next load can use it.
+     */
+    private void write(Yaml config, Set<String> changed) throws IOException {
+        write(out -> writer.write(config, changed, out));
+        if (mode == LoadMode.CACHED) {
+            writeCache(Files.size(toPath()), checksum, config);
+        }
+    }
+
+    /**
+     * Streams the output to a temporary file next to this one and moves it over this file,
+     * so a crash during the write never leaves a truncated file behind.
+     */
+    private void write(Output output) throws IOException {
+        Path target = toPath().toAbsolutePath();
+        Files.createDirectories(target.getParent());
+        Path temp = target.resolveSibling(getName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Writer out = new OutputStreamWriter(new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024), crc), StandardCharsets.UTF_8);
+            output.writeTo(out);
+            // Not closed, since that would close the channel before it is forced.
+            out.flush();
+            channel.force(true);
+        }
+        checksum = crc.getValue();
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private interface Output {
+        void writeTo(Writer out) throws IOException;
+    }
+
+    /**
+     * Enables or disables incremental saving. Saves always stream the configuration to the file one top-level
+     * key at a time; with incremental saving, keys whose values and comments did not change since the last save
+     * are copied from their previously written text instead of being serialized again. This speeds up saving large files
+     * where only a few keys change, at the cost of keeping the written text in memory.
+     * <p>
+     * Changes made through the {@link Yaml} are tracked per top-level key. After changing a child section,
+     * or a value such as an item in place, call {@link Yaml#markChanged(String)} with its path.
+     *
+     * @param enabled true to save incrementally.
+     * @return This YMLFile.
+     */
+    public YMLFile setIncrementalSave(boolean enabled) {
+        synchronized (writeLock) {
+            writer.setIncremental(enabled);
+        }
+        return this;
+    }
+
+    /**
+     * Checks if incremental saving is enabled, see {@link #setIncrementalSave(boolean)}.
+     *
+     * @return true if saves only serialize the keys that changed.
+     */
+    public boolean isIncrementalSave() {
+        synchronized (writeLock) {
+            return writer.isIncremental();
+        }
+    }
+
+    /**
+     * Enables hot reloading. When the file is changed on disk it is parsed on a background thread,
+     * and the new configuration replaces the one returned by {@link #getConfig()} on the main thread.
+     * The listeners registered with {@link #onChange(String, Consumer)} are then called with the values
+     * that changed. Defaults missing from the new file are added back and saved.
+     * <p>
+     * A reloaded configuration is always fully loaded, even in {@link LoadMode#LAZY}, and changes that were
+     * not saved yet are discarded. Keep using {@link #getConfig()} rather than holding on to the Yaml it returns.
+     * The values of every {@link ConfigBinding} are bound again before the listeners are called; if they are invalid,
+     * the error is logged and the previous values are kept.
+     *
+     * @param plugin the plugin to run the reloads on the main thread for
+     * @return This YMLFile.
+     */
+    public YMLFile watch(Plugin plugin) {
+        if (plugin == null) {
+            throw new IllegalArgumentException("The plugin cannot be null.");
+        }
+        try {
+            if (checksum == -1) checksum = ConfigWatcher.checksum(Files.readAllBytes(toPath()));
+            watcher = plugin;
+            ConfigWatcher.watch(this);
+        } catch (IOException e) {
+            watcher = null;
+            throw new RuntimeException("Unable to watch file!", e);
+        }
+        return this;
+    }
+
+    /**
+     * Disables hot reloading. Reloads that are already parsed may still be applied.
+     */
+    public void unwatch() {
+        watcher = null;
+        ConfigWatcher.unwatch(this);
+    }
+
+    /**
+     * Checks if hot reloading is enabled.
+     *
+     * @return true if the file is reloaded when it changes on disk.
+     */
+    public boolean isWatched() {
+        return watcher != null;
+    }
+
+    /**
+     * Registers a listener called on the main thread for every value at or below the path that changed
+     * when the file was reloaded from disk.
+     *
+     * @param path     the path to listen to, or an empty String for every path
+     * @param listener the listener
+     * @return This YMLFile.
+     */
+    public YMLFile onChange(String path, Consumer<ConfigChange> listener) {
+        listeners.add(new ChangeListener(path, listener));
+        return this;
+    }
+
+    long getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * Called on the watcher thread with the configuration parsed from the changed file.
+     */
+    void reloaded(Yaml yaml, long checksum) {
+        Plugin plugin = watcher;
+        if (plugin == null || !plugin.isEnabled()) return;
+        boolean missingDefaults = loadDefaults(yaml);
+        Bukkit.getScheduler().runTask(plugin, () -> swap(yaml, checksum, missingDefaults));
+    }
+
+    private void swap(Yaml yaml, long checksum, boolean missingDefaults) {
+        if (watcher == null) return;
+        List<ConfigChange> changes = ConfigWatcher.diff(config, yaml);
+        if (config.isPublished()) yaml.publish();
+        synchronized (writeLock) {
+            pendingWrite.set(null);
+            writer.clear();
+            config = yaml;
+            this.checksum = checksum;
+        }
+        cache.clear();
+        if (missingDefaults)
+            save();
+        for (ConfigValidationException e : rebind()) {
+            Bukkit.getLogger().log(Level.SEVERE, "Keeping the previous values of " + getPath() + ".", e);
+        }
+        for (ChangeListener listener : listeners) {
+            for (ConfigChange change : changes) {
+                if (!change.isUnder(listener.path)) continue;
+                try {
+                    listener.consumer.accept(change);
+                } catch (RuntimeException e) {
+                    Bukkit.getLogger().log(Level.SEVERE, "A change listener of " + getPath() + " failed for " + change.getPath(), e);
+                }
+            }
+        }
+    }
+
+    private static final class ChangeListener {
+
+        private final String path;
+        private final Consumer<ConfigChange> consumer;
+
+        private ChangeListener(String path, Consumer<ConfigChange> consumer) {
+            this.path = path;
+            this.consumer = consumer;
         }
     }
 
+    /**
+     * Copies the configuration tree, so it can be serialized on another thread while this one keeps changing.
+     * Only sections and lists are copied; the values themselves are shared.
+     */
+    private Yaml snapshot() {
+        Yaml snapshot = new Yaml();
+        Yaml.copySection(config, snapshot);
+        snapshot.options().setHeader(config.options().getHeader());
+        snapshot.options().setFooter(config.options().getFooter());
+        snapshot.drainChanges();
+        snapshot.addChanges(config.drainChanges());
+        return snapshot;
+    }
+
+    /**
+     * Holds the writer thread, created when the first file enables write-behind saving.
+     */
+    private static final class WriteBehind {
+
+        private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "GeneralSpigotHelper-YMLFile-Writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        private static final Set<YMLFile> FILES = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+    }
+
     /**
      * Creates a new {@link YMLFile} in the corresponding directory with the file.
      * Keep in mind that the extension is required and not automatically set.
@@ -103,7 +492,7 @@ public class YMLFile extends File {
      *
      * @return true if any changes were made to the configuration, false otherwise.
      */
-    private boolean loadDefaults() {
+    private boolean loadDefaults(Yaml config) {
         if (defaults == null) return false;
         boolean changed = false;
         for (Defaults defaultClass : defaults.getValues()) {
@@ -124,15 +513,236 @@ public class YMLFile extends File {
         return config;
     }
 
+    /**
+     * Reloads the configuration from the file, clears the cached values and binds the values of every
+     * {@link ConfigBinding} again. Changes that were not saved, including pending write-behind snapshots, are discarded.
+     * @throws ConfigValidationException if the values of a binding are invalid, after the configuration was reloaded.
+     * The binding keeps its previous values.
+     */
+    public void reload() {
+        synchronized (writeLock) {
+            pendingWrite.set(null);
+            writer.clear();
+            try {
+                load(config);
+            } catch (IOException | InvalidConfigurationException e) {
+                throw new RuntimeException("Unable to reload file!", e);
+            }
+        }
+        cache.clear();
+        if (loadDefaults(config))
+            save();
+        if (config.isPublished()) config.publish(true);
+        List<ConfigValidationException> errors = rebind();
+        if (!errors.isEmpty()) {
+            ConfigValidationException error = errors.get(0);
+            for (int i = 1; i < errors.size(); i++) {
+                error.addSuppressed(errors.get(i));
+            }
+            throw error;
+        }
+    }
+
+    /**
+     * Binds the configuration with a schema, and binds it again whenever the file is reloaded.
+     * @param schema the schema of the configuration
+     * @param <E> the Defaults enum
+     * @return the binding holding the values of the current configuration
+     * @throws ConfigValidationException if any value is invalid
+     */
+    public <E extends Enum<E> & Defaults> ConfigBinding<E> bind(ConfigSchema<E> schema) {
+        ConfigBinding<E> binding = new ConfigBinding<>(this, schema);
+        bindings.add(binding);
+        return binding;
+    }
+
+    /**
+     * Binds the current configuration for every binding.
+     * @return the errors of the bindings that kept their previous values
+     */
+    private List<ConfigValidationException> rebind() {
+        List<ConfigValidationException> errors = new ArrayList<>(0);
+        for (ConfigBinding<?> binding : bindings) {
+            try {
+                binding.rebind();
+            } catch (ConfigValidationException e) {
+                errors.add(e);
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Gets the last snapshot of the configuration published by {@link Yaml#publish()}, for reading it
+     * from other threads. Once a snapshot was published, reloads publish a new one automatically.
+     *
+     * @return The snapshot, or an empty snapshot if none was published yet.
+     */
+    public ConfigSnapshot getSnapshot() {
+        return config.getSnapshot();
+    }
+
     public String fromPath(Defaults defaults){
-        return config.get(defaults.getPath()).toString();
+        return getString(defaults);
     }
 
     public String get(Defaults... defaults){
+        if (defaults.length == 1) return getString(defaults[0]);
         StringBuilder stringBuilder = new StringBuilder();
         for(Defaults defaultClass : defaults){
-            stringBuilder.append(fromPath(defaultClass)).toString();
+            stringBuilder.append(getString(defaultClass));
         }
         return stringBuilder.toString();
     }
+
+    /**
+     * Gets the value of a default as a String. The value is resolved once and cached until the
+     * configuration is changed through {@link Yaml#set(String, Object)} or reloaded.
+     * @param defaults the default to read
+     * @return the value, or the default value if the path is not set
+     */
+    public String getString(Defaults defaults) {
+        CachedValue value = cached(defaults);
+        String string = value.string;
+        if (string == null) {
+            string = value.string = String.valueOf(value.raw);
+        }
+        return string;
+    }
+
+    /**
+     * Gets the value of a default as a String with {@code &} colour codes translated.
+     * @param defaults the default to read
+     * @return the colourized value
+     */
+    public String getColored(Defaults defaults) {
+        CachedValue value = cached(defaults);
+        String colored = value.colored;
+        if (colored == null) {
+            colored = value.colored = GeneralUtility.chat(getString(defaults));
+        }
+        return colored;
+    }
+
+    /**
+     * Gets the value of a default as colourized chat components.
+     * The returned array is shared between calls and must not be modified.
+     * @param defaults the default to read
+     * @return the components of the colourized value
+     */
+    public BaseComponent[] getComponents(Defaults defaults) {
+        CachedValue value = cached(defaults);
+        BaseComponent[] components = value.components;
+        if (components == null) {
+            components = value.components = TextComponent.fromLegacyText(getColored(defaults));
+        }
+        return components;
+    }
+
+    /**
+     * Gets the value of a default as an int.
+     * @param defaults the default to read
+     * @return the value, or 0 if it is not a number
+     */
+    public int getInt(Defaults defaults) {
+        Object raw = cached(defaults).raw;
+        return raw instanceof Number ? ((Number) raw).intValue() : 0;
+    }
+
+    /**
+     * Gets the value of a default as a double.
+     * @param defaults the default to read
+     * @return the value, or 0 if it is not a number
+     */
+    public double getDouble(Defaults defaults) {
+        Object raw = cached(defaults).raw;
+        return raw instanceof Number ? ((Number) raw).doubleValue() : 0;
+    }
+
+    /**
+     * Gets the value of a default as a boolean.
+     * @param defaults the default to read
+     * @return the value, or false if it is not a boolean
+     */
+    public boolean getBoolean(Defaults defaults) {
+        Object raw = cached(defaults).raw;
+        return raw instanceof Boolean && (Boolean) raw;
+    }
+
+    /**
+     * Gets the value of a default as an unmodifiable list of Strings.
+     * @param defaults the default to read
+     * @return the list, or an empty list if the value is not a list
+     */
+    public List<String> getStringList(Defaults defaults) {
+        CachedValue value = cached(defaults);
+        List<String> list = value.list;
+        if (list == null) {
+            List<String> strings = new ArrayList<>();
+            if (value.raw instanceof List) {
+                for (Object element : (List<?>) value.raw) {
+                    if (element != null) strings.add(element.toString());
+                }
+            }
+            list = value.list = Collections.unmodifiableList(strings);
+        }
+        return list;
+    }
+
+    /**
+     * Gets the value of a default as an unmodifiable list of Strings with {@code &} colour codes translated.
+     * @param defaults the default to read
+     * @return the colourized list
+     */
+    public List<String> getColoredList(Defaults defaults) {
+        CachedValue value = cached(defaults);
+        List<String> list = value.coloredList;
+        if (list == null) {
+            List<String> colored = new ArrayList<>();
+            for (String line : getStringList(defaults)) {
+                colored.add(GeneralUtility.chat(line));
+            }
+            list = value.coloredList = Collections.unmodifiableList(colored);
+        }
+        return list;
+    }
+
+    /**
+     * Clears the cached values, for example after changing the configuration through a child section.
+     */
+    public void invalidateCache() {
+        cache.clear();
+    }
+
+    private CachedValue cached(Defaults defaults) {
+        int modCount = config.getModCount();
+        if (modCount != cachedModCount) {
+            cache.clear();
+            cachedModCount = modCount;
+        }
+        CachedValue value = cache.get(defaults);
+        if (value == null) {
+            Object raw = config.get(defaults.getPath());
+            value = new CachedValue(raw != null ? raw : defaults.getDefaultValue());
+            cache.put(defaults, value);
+        }
+        return value;
+    }
+
+    /**
+     * The value of a default and the typed forms of it that were requested so far.
+     */
+    private static final class CachedValue {
+
+        private final Object raw;
+        private volatile String string;
+        private volatile String colored;
+        private volatile BaseComponent[] components;
+        private volatile List<String> list;
+        private volatile List<String> coloredList;
+
+        private CachedValue(Object raw) {
+            this.raw = raw;
+        }
+    }
 }
@@ -3,6 +3,7 @@ package com.github.fotohh.file;
 import com.github.fotohh.utility.GeneralUtility;
 import org.bukkit.*;
 import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.enchantments.Enchantment;
 import org.bukkit.entity.Player;
@@ -10,9 +11,19 @@ import org.bukkit.event.inventory.InventoryType;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.util.io.BukkitObjectInputStream;
+import org.bukkit.util.io.BukkitObjectOutputStream;
 import org.jetbrains.annotations.NotNull;
 
 import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -21,15 +32,339 @@ import java.util.stream.Collectors;
  */
 public class Yaml extends YamlConfiguration {
 
+    // Top-level keys that are not parsed yet, in file order, and the mapped file their text is read from.
+    private Map<String, int[]> lazyKeys;
+    private List<String> fileOrder;
+    private ByteBuffer source;
+
+    // Sections by lower case name in depth-first order, built on first lookup, and the next number to try per base section.
+    private Map<String, List<ConfigurationSection>> sectionIndex;
+    private final Map<String, Integer> numberedSections = new HashMap<>();
+
+    private volatile int modCount;
+    // Top-level keys changed since the last save, or null if any key may have changed.
+    private Set<String> changedKeys;
+    private volatile ConfigSnapshot snapshot = ConfigSnapshot.EMPTY;
+
     public Yaml(){
         super();
     }
 
+    /**
+     * Loads the file lazily: it is memory-mapped and scanned once for the byte ranges of its top-level keys,
+     * and each key is only parsed when it, or a path below it, is first accessed.
+     * Files the scan cannot split safely are loaded eagerly instead.
+     *
+     * @param file The file to load.
+     * @throws IOException if the file cannot be read.
+     * @throws InvalidConfigurationException if the file is loaded eagerly and is not valid YAML.
+     */
+    public void loadLazily(File file) throws IOException, InvalidConfigurationException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        Map<String, int[]> keys = new LinkedHashMap<>();
+        if (!indexTopLevelKeys(buffer, keys)) {
+            loadFromString(decode(buffer, 0, buffer.limit()));
+            return;
+        }
+        loadFromString("");
+        int firstKey = keys.isEmpty() ? buffer.limit() : keys.values().iterator().next()[1];
+        if (firstKey > 0) {
+            // Only comments precede the first key, so this just reads the header.
+            YamlConfiguration header = new YamlConfiguration();
+            header.loadFromString(decode(buffer, 0, firstKey));
+            options().setHeader(header.options().getHeader());
+        }
+        synchronized (this) {
+            this.source = buffer;
+            this.lazyKeys = keys;
+            this.fileOrder = new ArrayList<>(keys.keySet());
+        }
+    }
+
+    /**
+     * Checks if some top-level keys are not parsed yet.
+     *
+     * @return true if the configuration was loaded lazily and is not fully parsed.
+     */
+    public boolean isPartiallyLoaded() {
+        return lazyKeys != null;
+    }
+
+    /**
+     * Records the byte range of every top-level key. A range starts at the comments above its key,
+     * except for the first one which starts at the beginning of the file, and ends where the next one starts.
+     * Each value holds the start of the range, the start of the key's own line and the end of the range.
+     *
+     * @return false if the file uses constructs that cannot be split at its top-level keys.
+     */
+    private static boolean indexTopLevelKeys(ByteBuffer buffer, Map<String, int[]> keys) {
+        int limit = buffer.limit();
+        int position = limit >= 3 && buffer.get(0) == (byte) 0xEF && buffer.get(1) == (byte) 0xBB && buffer.get(2) == (byte) 0xBF ? 3 : 0;
+        int commentRun = -1;
+        int[] previous = null;
+        while (position < limit) {
+            int lineStart = position;
+            int lineEnd = lineStart;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') lineEnd++;
+            position = lineEnd + 1;
+
+            int firstChar = lineStart;
+            while (firstChar < lineEnd && (buffer.get(firstChar) == ' ' || buffer.get(firstChar) == '\t' || buffer.get(firstChar) == '\r')) firstChar++;
+            if (firstChar == lineEnd || buffer.get(firstChar) == '#') {
+                if (commentRun < 0) commentRun = lineStart;
+                continue;
+            }
+            if (hasAnchorOrAlias(buffer, firstChar, lineEnd)) return false;
+            if (firstChar > lineStart) {
+                commentRun = -1;
+                continue;
+            }
+            byte first = buffer.get(lineStart);
+            if (first == '-' && previous != null && (lineStart + 1 == lineEnd || buffer.get(lineStart + 1) == ' ' || buffer.get(lineStart + 1) == '\r')) {
+                // Bukkit writes the items of a list under a top-level key at column 0.
+                commentRun = -1;
+                continue;
+            }
+            if ("-%?[{\"'!&*|>@`".indexOf(first) >= 0 || startsWith(buffer, lineStart, lineEnd, "...")) return false;
+            int colon = lineStart;
+            while (colon < lineEnd && !(buffer.get(colon) == ':' && (colon + 1 == lineEnd || buffer.get(colon + 1) == ' ' || buffer.get(colon + 1) == '\r'))) colon++;
+            if (colon == lineEnd) return false;
+
+            int blockStart = keys.isEmpty() ? 0 : commentRun >= 0 ? commentRun : lineStart;
+            if (previous != null) previous[2] = blockStart;
+            String key = decode(buffer, lineStart, colon).trim();
+            previous = new int[]{blockStart, lineStart, limit};
+            keys.remove(key);
+            keys.put(key, previous);
+            commentRun = -1;
+        }
+        return true;
+    }
+
+    private static boolean hasAnchorOrAlias(ByteBuffer buffer, int from, int to) {
+        for (int i = from; i < to - 1; i++) {
+            byte c = buffer.get(i);
+            if (c != '&' && c != '*') continue;
+            byte before = i == from ? (byte) ' ' : buffer.get(i - 1);
+            byte after = buffer.get(i + 1);
+            if (" -:[{,".indexOf(before) >= 0 && after != ' ' && after != '\r') return true;
+        }
+        return false;
+    }
+
+    private static boolean startsWith(ByteBuffer buffer, int from, int to, String prefix) {
+        if (to - from < prefix.length()) return false;
+        for (int i = 0; i < prefix.length(); i++) {
+            if (buffer.get(from + i) != prefix.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static String decode(ByteBuffer buffer, int from, int to) {
+        ByteBuffer slice = buffer.duplicate();
+        slice.position(from).limit(to);
+        return StandardCharsets.UTF_8.decode(slice).toString();
+    }
+
+    /**
+     * Parses the top-level key of the given path if it was not parsed yet.
+     */
+    private void materialize(String path) {
+        if (lazyKeys == null) return;
+        int separator = path.indexOf(options().pathSeparator());
+        String key = separator < 0 ? path : path.substring(0, separator);
+        synchronized (this) {
+            if (lazyKeys == null) return;
+            int[] range = lazyKeys.remove(key);
+            if (range != null) parse(key, range);
+            if (lazyKeys.isEmpty()) release();
+        }
+    }
+
+    /**
+     * Parses every key that was not parsed yet, keeping the order of the file.
+     */
+    private void materializeAll() {
+        if (lazyKeys == null) return;
+        synchronized (this) {
+            if (lazyKeys == null) return;
+            for (Map.Entry<String, int[]> entry : lazyKeys.entrySet()) {
+                parse(entry.getKey(), entry.getValue());
+            }
+            List<String> order = new ArrayList<>(fileOrder);
+            for (String key : super.getKeys(false)) {
+                if (!order.contains(key)) order.add(key);
+            }
+            // Keys parsed on access were appended to the map, so every key is moved back to its place in the file.
+            for (String key : order) {
+                Object value = super.get(key, null);
+                if (value == null) continue;
+                List<String> comments = super.getComments(key);
+                List<String> inlineComments = super.getInlineComments(key);
+                super.set(key, null);
+                super.set(key, value);
+                super.setComments(key, comments);
+                super.setInlineComments(key, inlineComments);
+            }
+            release();
+        }
+    }
+
+    private void parse(String key, int[] range) {
+        YamlConfiguration parsed = new YamlConfiguration();
+        try {
+            parsed.loadFromString(decode(source, range[0], range[2]));
+        } catch (InvalidConfigurationException e) {
+            throw new IllegalStateException("Unable to parse the key '" + key + "' of a lazily loaded file.", e);
+        }
+        Object value = parsed.get(key, null);
+        if (value instanceof ConfigurationSection) {
+            copySection((ConfigurationSection) value, super.createSection(key));
+        } else {
+            super.set(key, value);
+        }
+        super.setComments(key, parsed.getComments(key));
+        super.setInlineComments(key, parsed.getInlineComments(key));
+        if (!parsed.options().getFooter().isEmpty()) options().setFooter(parsed.options().getFooter());
+    }
+
+    private void release() {
+        lazyKeys = null;
+        fileOrder = null;
+        source = null;
+    }
+
+    /**
+     * Copies the sections of a tree and the lists in it, keeping comments. Other values are shared.
+     *
+     * @param from The section to copy.
+     * @param to   The section to copy into.
+     */
+    static void copySection(ConfigurationSection from, ConfigurationSection to) {
+        for (String key : from.getKeys(false)) {
+            Object value = from.get(key);
+            if (value instanceof ConfigurationSection) {
+                copySection((ConfigurationSection) value, to.createSection(key));
+            } else {
+                to.set(key, value instanceof List ? new ArrayList<>((List<?>) value) : value);
+            }
+            to.setComments(key, from.getComments(key));
+            to.setInlineComments(key, from.getInlineComments(key));
+        }
+    }
+
+    @Override
+    public Object get(@NotNull String path, Object def) {
+        materialize(path);
+        return super.get(path, def);
+    }
+
+    @Override
+    public void set(@NotNull String path, Object value) {
+        materialize(path);
+        if (sectionIndex != null || !numberedSections.isEmpty()) beforeSet(path, value);
+        markChanged(path);
+        super.set(path, value);
+        modCount++;
+    }
+
+    @Override
+    public @NotNull ConfigurationSection createSection(@NotNull String path) {
+        materialize(path);
+        boolean indexable = sectionIndex != null && parentExists(path);
+        markChanged(path);
+        ConfigurationSection section = super.createSection(path);
+        modCount++;
+        if (indexable) {
+            indexSection(section);
+        } else {
+            sectionIndex = null;
+        }
+        return section;
+    }
+
+    @Override
+    public @NotNull Set<String> getKeys(boolean deep) {
+        if (deep) materializeAll();
+        synchronized (this) {
+            if (lazyKeys == null) return super.getKeys(deep);
+            Set<String> keys = new LinkedHashSet<>();
+            Set<String> parsed = super.getKeys(false);
+            for (String key : fileOrder) {
+                if (lazyKeys.containsKey(key) || parsed.contains(key)) keys.add(key);
+            }
+            keys.addAll(parsed);
+            return keys;
+        }
+    }
+
+    @Override
+    public @NotNull Map<String, Object> getValues(boolean deep) {
+        materializeAll();
+        return super.getValues(deep);
+    }
+
+    @Override
+    public @NotNull List<String> getComments(@NotNull String path) {
+        materialize(path);
+        return super.getComments(path);
+    }
+
+    @Override
+    public @NotNull List<String> getInlineComments(@NotNull String path) {
+        materialize(path);
+        return super.getInlineComments(path);
+    }
+
+    @Override
+    public void setComments(@NotNull String path, List<String> comments) {
+        materialize(path);
+        markChanged(path);
+        super.setComments(path, comments);
+    }
+
+    @Override
+    public void setInlineComments(@NotNull String path, List<String> comments) {
+        materialize(path);
+        markChanged(path);
+        super.setInlineComments(path, comments);
+    }
+
+    @Override
+    public @NotNull String saveToString() {
+        materializeAll();
+        return super.saveToString();
+    }
+
+    @Override
+    public void loadFromString(@NotNull String contents) throws InvalidConfigurationException {
+        synchronized (this) {
+            release();
+        }
+        sectionIndex = null;
+        numberedSections.clear();
+        changedKeys = null;
+        super.loadFromString(contents);
+        modCount++;
+    }
+
+    /**
+     * Creates the section {@code baseSectionName.N} with the lowest free number N.
+     * The next number is remembered per base section, and lowered again when a numbered section
+     * is removed through {@link #set(String, Object)}, so creating many sections does not probe from 1 each time.
+     *
+     * @param baseSectionName The path of the section containing the numbered sections.
+     * @return The new section.
+     */
     public ConfigurationSection createNumberedSection(String baseSectionName) {
-        int sectionNumber = 1;
+        int sectionNumber = numberedSections.getOrDefault(baseSectionName, 1);
         while (isConfigurationSection(baseSectionName + "." + sectionNumber)) {
             sectionNumber++;
         }
+        numberedSections.put(baseSectionName, sectionNumber + 1);
         return createSection(baseSectionName + "." + sectionNumber);
     }
 
@@ -110,33 +445,260 @@ public class Yaml extends YamlConfiguration {
         return isConfigurationSection(sectionName) && contains(sectionName);
     }
 
-    private @Nullable ConfigurationSection findNestedSection(String parentSectionName, ConfigurationSection currentSection) {
-        for (String sectionName : currentSection.getKeys(false)) {
-            ConfigurationSection nestedSection = currentSection.getConfigurationSection(sectionName);
-            if (nestedSection != null) {
-                if (sectionName.equalsIgnoreCase(parentSectionName)) {
-                    return nestedSection;
-                }
-                ConfigurationSection foundSection = findNestedSection(parentSectionName, nestedSection);
-                if (foundSection != null) {
-                    return foundSection;
-                }
-            }
-        }
-        return null;
-    }
-
     /**
      * Finds a nested configuration section within the YAML file.
+     * Sections are looked up by name, ignoring case, in an index built on the first call,
+     * so repeated lookups do not walk the whole file. While the file is partially loaded the parsed keys are
+     * walked instead, and only the unparsed top-level keys whose text mentions the name are parsed.
      *
      * @param parentSectionName The name of the parent section.
      * @return The nested configuration section, or null if it doesn't exist.
      */
     public @Nullable ConfigurationSection findNestedSection(String parentSectionName) {
-        if (!sectionExists(parentSectionName)) {
+        if (!sectionExists(parentSectionName) || parentSectionName.indexOf(options().pathSeparator()) >= 0) {
             return null;
         }
-        return findNestedSection(parentSectionName, this);
+        if (lazyKeys != null) return findLazily(parentSectionName);
+        ConfigurationSection section = lookupSection(parentSectionName);
+        if (section == null) {
+            // A section was added below the root without going through this Yaml.
+            reindex();
+            section = lookupSection(parentSectionName);
+        }
+        return section;
+    }
+
+    /**
+     * Finds a section by name in the order of the file like the index does, parsing only the top-level keys
+     * that may contain it. Building the index would parse the whole file.
+     */
+    private @Nullable ConfigurationSection findLazily(String name) {
+        for (String key : getKeys(false)) {
+            if (!mayContainSection(key, name)) continue;
+            materialize(key);
+            ConfigurationSection section = super.getConfigurationSection(key);
+            if (section == null) continue;
+            if (key.equalsIgnoreCase(name)) return section;
+            ConfigurationSection found = findSection(section, name);
+            if (found != null) return found;
+        }
+        return null;
+    }
+
+    private static @Nullable ConfigurationSection findSection(ConfigurationSection parent, String name) {
+        for (String key : parent.getKeys(false)) {
+            ConfigurationSection child = parent.getConfigurationSection(key);
+            if (child == null) continue;
+            if (key.equalsIgnoreCase(name)) return child;
+            ConfigurationSection found = findSection(child, name);
+            if (found != null) return found;
+        }
+        return null;
+    }
+
+    /**
+     * Checks if a top-level key is parsed, is the section itself, or has a line below it that starts with the name
+     * as a key. Lines in block scalars may match too; they only cause the key to be parsed.
+     */
+    private synchronized boolean mayContainSection(String key, String name) {
+        if (lazyKeys == null || key.equalsIgnoreCase(name)) return true;
+        int[] range = lazyKeys.get(key);
+        if (range == null) return true;
+        String text = decode(source, range[1], range[2]);
+        int lineStart = text.indexOf('\n') + 1;
+        while (lineStart > 0 && lineStart < text.length()) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0) lineEnd = text.length();
+            int keyStart = lineStart;
+            while (keyStart < lineEnd && (text.charAt(keyStart) == ' ' || text.charAt(keyStart) == '-')) keyStart++;
+            if (keyStart < lineEnd && (text.charAt(keyStart) == '\'' || text.charAt(keyStart) == '"')) keyStart++;
+            if (text.regionMatches(true, keyStart, name, 0, name.length())) {
+                int after = keyStart + name.length();
+                if (after < lineEnd && (text.charAt(after) == '\'' || text.charAt(after) == '"')) after++;
+                if (after < lineEnd && text.charAt(after) == ':') return true;
+            }
+            lineStart = lineEnd + 1;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the number of changes made through this Yaml, used to invalidate values cached from it.
+     * Changes made through a child {@link ConfigurationSection} are not counted.
+     *
+     * @return The modification count.
+     */
+    public int getModCount() {
+        return modCount;
+    }
+
+    /**
+     * Marks the top-level key of a path as changed, so an incremental save (see {@link YMLFile#setIncrementalSave(boolean)})
+     * serializes it again. Changes made through this Yaml are marked already; call this after changing
+     * a child {@link ConfigurationSection}, such as {@code getConfigurationSection("a").set("b", 1)}.
+     *
+     * @param path The changed path.
+     */
+    public void markChanged(String path) {
+        if (changedKeys == null) return;
+        int separator = path.indexOf(options().pathSeparator());
+        changedKeys.add(separator < 0 ? path : path.substring(0, separator));
+    }
+
+    /**
+     * Gets the top-level keys changed since the last call and starts tracking changes again.
+     *
+     * @return The changed keys, or null if any key may have changed.
+     */
+    Set<String> drainChanges() {
+        Set<String> changes = changedKeys;
+        changedKeys = new HashSet<>();
+        return changes;
+    }
+
+    /**
+     * Gets the top-level keys changed since the last {@link #drainChanges()}, without resetting them.
+     *
+     * @return The changed keys, or null if any key may have changed.
+     */
+    Set<String> peekChanges() {
+        return changedKeys;
+    }
+
+    /**
+     * Marks the given top-level keys as changed.
+     *
+     * @param keys The keys, or null to mark every key.
+     */
+    void addChanges(Set<String> keys) {
+        if (keys == null) {
+            changedKeys = null;
+        } else if (changedKeys != null) {
+            changedKeys.addAll(keys);
+        }
+    }
+
+    /**
+     * Copies the configuration into an immutable {@link ConfigSnapshot} and publishes it, so other threads
+     * reading {@link #getSnapshot()} see it. Call this on the thread that changes the configuration,
+     * usually the main thread, after a batch of changes. Nothing is copied if the configuration was not
+     * changed through this Yaml since the last snapshot was published. Changes made through a child
+     * {@link ConfigurationSection}, such as {@code getConfigurationSection("a").set("b", 1)}, are not seen;
+     * use {@link #publish(boolean)} after those.
+     *
+     * @return The published snapshot.
+     */
+    public ConfigSnapshot publish() {
+        return publish(false);
+    }
+
+    /**
+     * Copies the configuration into an immutable {@link ConfigSnapshot} and publishes it, see {@link #publish()}.
+     *
+     * @param force true to copy the configuration even if it was not changed through this Yaml,
+     *              for example after changes made through a child section.
+     * @return The published snapshot.
+     */
+    public ConfigSnapshot publish(boolean force) {
+        int version = modCount;
+        ConfigSnapshot current = snapshot;
+        if (!force && current != ConfigSnapshot.EMPTY && current.getVersion() == version) return current;
+        ConfigSnapshot published = ConfigSnapshot.of(this, version);
+        snapshot = published;
+        return published;
+    }
+
+    /**
+     * Gets the last snapshot published by {@link #publish()}. Safe to call from any thread.
+     *
+     * @return The snapshot, or an empty snapshot if none was published yet.
+     */
+    public ConfigSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Checks if a snapshot was published, see {@link #publish()}.
+     *
+     * @return true if {@link #getSnapshot()} returns a published snapshot.
+     */
+    public boolean isPublished() {
+        return snapshot != ConfigSnapshot.EMPTY;
+    }
+
+    /**
+     * Rebuilds the index used by {@link #findNestedSection(String)}. The index follows changes made through
+     * this Yaml; call this after adding sections through a child {@link ConfigurationSection}
+     * if a lookup must see them before a section of the same name that already exists.
+     */
+    public void reindex() {
+        Map<String, List<ConfigurationSection>> index = new HashMap<>();
+        indexSections(this, index);
+        sectionIndex = index;
+    }
+
+    private @Nullable ConfigurationSection lookupSection(String name) {
+        if (sectionIndex == null) reindex();
+        List<ConfigurationSection> sections = sectionIndex.get(name.toLowerCase(Locale.ROOT));
+        if (sections == null) return null;
+        for (ConfigurationSection section : sections) {
+            // Sections replaced or removed through a child section stay in the index until the next rebuild.
+            if (section.getRoot() == this && super.get(section.getCurrentPath(), null) == section) return section;
+        }
+        return null;
+    }
+
+    private static void indexSections(ConfigurationSection section, Map<String, List<ConfigurationSection>> index) {
+        for (String key : section.getKeys(false)) {
+            ConfigurationSection child = section.getConfigurationSection(key);
+            if (child != null) {
+                index.computeIfAbsent(key.toLowerCase(Locale.ROOT), name -> new ArrayList<>(1)).add(child);
+                indexSections(child, index);
+            }
+        }
+    }
+
+    private void indexSection(ConfigurationSection section) {
+        sectionIndex.computeIfAbsent(section.getName().toLowerCase(Locale.ROOT), name -> new ArrayList<>(1)).add(section);
+    }
+
+    private boolean parentExists(String path) {
+        int separator = path.lastIndexOf(options().pathSeparator());
+        return separator < 0 || super.get(path.substring(0, separator), null) instanceof ConfigurationSection;
+    }
+
+    /**
+     * Keeps the section index and the numbered section counters consistent with a value about to be set.
+     */
+    private void beforeSet(String path, Object value) {
+        Object existing = super.get(path, null);
+        if (existing instanceof ConfigurationSection) {
+            String prefix = path + options().pathSeparator();
+            numberedSections.keySet().removeIf(base -> base.equals(path) || base.startsWith(prefix));
+        }
+        if (value == null || existing instanceof ConfigurationSection) {
+            int separator = path.lastIndexOf(options().pathSeparator());
+            Integer next = numberedSections.get(separator < 0 ? "" : path.substring(0, separator));
+            int number = parseNumber(path.substring(separator + 1));
+            if (next != null && number > 0 && number < next) {
+                numberedSections.put(path.substring(0, Math.max(separator, 0)), number);
+            }
+        }
+        if (sectionIndex != null && (value instanceof ConfigurationSection || value instanceof Map
+                || existing instanceof ConfigurationSection || !parentExists(path))) {
+            sectionIndex = null;
+        }
+    }
+
+    private static int parseNumber(String key) {
+        if (key.isEmpty() || key.length() > 9) return -1;
+        int number = 0;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            number = number * 10 + (c - '0');
+        }
+        return number;
     }
 
     public Color stringToColor(String msg){
@@ -198,19 +760,23 @@ public class Yaml extends YamlConfiguration {
             for (Map.Entry<Enchantment, Integer> entry : enchantments.entrySet()) {
                 Enchantment enchantment = entry.getKey();
                 int level = entry.getValue();
-                enchantmentList.add(enchantment.getKey().getNamespace() + enchantment.getKey().getKey() + ":" + level);
+                enchantmentList.add(enchantment.getKey().getNamespace() + ":" + enchantment.getKey().getKey() + ":" + level);
             }
             itemSection.set("enchantments", enchantmentList);
         }
     }
+    /**
+     * Reads an item saved by {@link #set(String, ItemStack)}, or an item serialized by Bukkit.
+     *
+     * @param path The path of the item.
+     * @return The item, or null if there is none at the path.
+     */
     @Override
     public ItemStack getItemStack(@NotNull String path) {
-        ConfigurationSection section = getOrCreateSection(path);
+        ConfigurationSection itemSection = getConfigurationSection(path);
+        if (itemSection == null || !itemSection.contains("material")) return super.getItemStack(path);
 
-        ConfigurationSection itemSection = section.getConfigurationSection(path);
-        String currentPath = itemSection.getCurrentPath();
-
-        Material material = getMaterial(currentPath + ".material");
+        Material material = getMaterial(itemSection.getCurrentPath() + ".material");
         ItemStack itemStack = new ItemStack(material);
         ItemMeta meta = itemStack.getItemMeta();
         if (meta == null) return null;
@@ -220,16 +786,19 @@ public class Yaml extends YamlConfiguration {
 
         List<String> lore = itemSection.getStringList("lore");
         meta.setLore(lore.stream().map(GeneralUtility::chat).collect(Collectors.toList()));
+        itemStack.setItemMeta(meta);
 
         List<String> enchantments = itemSection.getStringList("enchantments");
         for (String enchant : enchantments) {
-            String[] data = enchant.split(":");
-            int level = Integer.parseInt(data[2]);
-            String enchantmentName = data[1];
-            itemStack.addEnchantment(Enchantment.getByKey(NamespacedKey.minecraft(enchantmentName)), level);
+            int separator = enchant.lastIndexOf(':');
+            if (separator < 0) continue;
+            int level = Integer.parseInt(enchant.substring(separator + 1));
+            String key = enchant.substring(0, separator);
+            // Older versions wrote the namespace and the key without a separator.
+            if (key.indexOf(':') < 0 && key.startsWith(NamespacedKey.MINECRAFT)) key = key.substring(NamespacedKey.MINECRAFT.length());
+            Enchantment enchantment = Enchantment.getByKey(NamespacedKey.fromString(key));
+            if (enchantment != null) itemStack.addEnchantment(enchantment, level);
         }
-
-        itemStack.setItemMeta(meta);
         return itemStack;
     }
     public void set(String path, Location location){
@@ -260,38 +829,114 @@ public class Yaml extends YamlConfiguration {
 
     public void set(String path, Inventory inventory, String title){
         ConfigurationSection section = getOrCreateSection(path);
-        int size = inventory.getSize();
+        ItemStack[] items = inventory.getContents();
         section.set("inventory_title", title);
-        section.set("inventory_size", size);
+        section.set("inventory_size", inventory.getSize());
         section.set("inventory_type", inventory.getType().name());
-        ConfigurationSection itemSection = getOrCreateSection(path + ".items");
-        for(int i = 0; i < size; i++){
-            ItemStack[] items = inventory.getContents();
-            set(itemSection.getCurrentPath() +"."+i, items[i]);
+        String itemPath = getOrCreateSection(path + ".items").getCurrentPath() + ".";
+        for(int i = 0; i < items.length; i++){
+            if (items[i] != null) set(itemPath + i, items[i]);
         }
     }
 
+    /**
+     * Saves the inventory with its contents encoded as one Base64 String, see {@link #setItems(String, ItemStack[])}.
+     * Unlike {@link #set(String, Inventory, String)} this keeps every property of the items and creates no
+     * section per slot. {@link #getInventory(String)} reads both formats.
+     *
+     * @param path The path to save the inventory at.
+     * @param inventory The inventory to save.
+     * @param title The title of the inventory when it is loaded.
+     */
+    public void setCompact(String path, Inventory inventory, String title){
+        ConfigurationSection section = getOrCreateSection(path);
+        section.set("inventory_title", title);
+        section.set("inventory_size", inventory.getSize());
+        section.set("inventory_type", inventory.getType().name());
+        section.set("contents", encodeItems(inventory.getContents()));
+    }
+
     public Inventory getInventory(String path){
+        ConfigurationSection section = getConfigurationSection(path);
+        if (section == null) return null;
         Inventory inventory;
-        boolean sizeIsNotNull = get(path + ".inventory_size") == null;
-        String title = getString(path + ".inventory_title");
-        Map<Integer, ItemStack> items = new HashMap<>();
-        for(String key : getConfigurationSection(path + ".items").getKeys(false)){
-            int i = Integer.parseInt(key);
-            items.put(i,getItemStack(key));
-        }
-        if(!sizeIsNotNull) {
-            int size = getInt(path + ".inventory_size");
-            inventory = Bukkit.createInventory(null, size, title);
-
+        String title = section.getString("inventory_title");
+        if(section.contains("inventory_size")) {
+            inventory = Bukkit.createInventory(null, section.getInt("inventory_size"), title);
         }else {
-            InventoryType type = InventoryType.valueOf(getString(path + ".inventory_type"));
+            InventoryType type = InventoryType.valueOf(section.getString("inventory_type"));
             inventory = Bukkit.createInventory(null, type, title);
         }
-        for(int key : items.keySet()){
-            inventory.setItem(key, items.get(key));
+        String contents = section.getString("contents");
+        if (contents != null) {
+            ItemStack[] items = decodeItems(contents, section.getCurrentPath());
+            inventory.setContents(items.length == inventory.getSize() ? items : Arrays.copyOf(items, inventory.getSize()));
+            return inventory;
+        }
+        ConfigurationSection itemSection = section.getConfigurationSection("items");
+        if (itemSection == null) return inventory;
+        String itemPath = itemSection.getCurrentPath() + ".";
+        for(String key : itemSection.getKeys(false)){
+            inventory.setItem(Integer.parseInt(key), getItemStack(itemPath + key));
         }
         return inventory;
     }
 
+    /**
+     * Saves the items as one Base64 String written by a {@link BukkitObjectOutputStream}, which keeps every
+     * property of the items. Only the slots holding an item are stored.
+     *
+     * @param path The path to save the items at.
+     * @param items The items, may contain nulls for empty slots.
+     */
+    public void setItems(String path, ItemStack[] items){
+        set(path, encodeItems(items));
+    }
+
+    /**
+     * Reads items saved by {@link #setItems(String, ItemStack[])}.
+     *
+     * @param path The path of the items.
+     * @return The items with nulls for empty slots, or null if the path is not set.
+     * @throws IllegalArgumentException if the value is not valid item data.
+     */
+    public ItemStack[] getItems(String path){
+        String data = getString(path);
+        return data != null ? decodeItems(data, path) : null;
+    }
+
+    private static String encodeItems(ItemStack[] items) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + items.length * 32);
+        try (BukkitObjectOutputStream out = new BukkitObjectOutputStream(bytes)) {
+            int count = 0;
+            for (ItemStack item : items) {
+                if (item != null) count++;
+            }
+            out.writeInt(items.length);
+            out.writeInt(count);
+            for (int i = 0; i < items.length; i++) {
+                if (items[i] == null) continue;
+                out.writeInt(i);
+                out.writeObject(items[i]);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to serialize items!", e);
+        }
+        return Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
+
+    private static ItemStack[] decodeItems(String data, String path) {
+        try (BukkitObjectInputStream in = new BukkitObjectInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(data)))) {
+            ItemStack[] items = new ItemStack[in.readInt()];
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                int slot = in.readInt();
+                items[slot] = (ItemStack) in.readObject();
+            }
+            return items;
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            throw new IllegalArgumentException("Invalid item data at " + path, e);
+        }
+    }
+
 }
@@ -0,0 +1,189 @@
+package com.github.fotohh.file;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.configuration.file.YamlRepresenter;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.comments.CommentLine;
+import org.yaml.snakeyaml.comments.CommentType;
+import org.yaml.snakeyaml.nodes.MappingNode;
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.NodeTuple;
+import org.yaml.snakeyaml.nodes.SequenceNode;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.representer.Representer;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes a configuration one top-level key at a time, serializing each key with SnakeYAML straight into the
+ * output, so the whole document is never built as one String or one node tree.
+ * <p>
+ * In incremental mode the text of each key is kept, and on the next write a key the {@link Yaml} did not mark
+ * as changed is copied from that text instead of dumped again. Changes made through a child section or to a value
+ * in place are only seen once marked with {@link Yaml#markChanged(String)}.
+ * <p>
+ * The header is written with the first key and the footer with the last one, matching the output of
+ * {@link YamlConfiguration#saveToString()}. Not thread-safe; {@link YMLFile} only uses it while holding its write lock.
+ */
+final class YamlWriter {
+
+    private final DumperOptions dumperOptions = new DumperOptions();
+    private final Representer representer = new YamlRepresenter(dumperOptions);
+    private final org.yaml.snakeyaml.Yaml yaml;
+    private final Map<String, Chunk> chunks = new HashMap<>();
+    private List<Object> options;
+    private boolean incremental;
+
+    YamlWriter() {
+        dumperOptions.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+        representer.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+        yaml = new org.yaml.snakeyaml.Yaml(representer, dumperOptions);
+    }
+
+    /**
+     * Enables or disables keeping the text of every key to copy it on the next write.
+     */
+    void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+        chunks.clear();
+    }
+
+    boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * Writes the configuration.
+     *
+     * @param changed the top-level keys changed since the last write, or null if any key may have changed.
+     */
+    void write(Yaml config, Set<String> changed, Writer out) throws IOException {
+        Set<String> keys = config.getKeys(false);
+        List<String> header = config.options().getHeader();
+        List<String> footer = config.options().getFooter();
+        if (keys.isEmpty()) {
+            chunks.clear();
+            // Only the header and footer, if any.
+            out.write(config.saveToString());
+            return;
+        }
+        dumperOptions.setIndent(config.options().indent());
+        dumperOptions.setWidth(config.options().width());
+        dumperOptions.setProcessComments(config.options().parseComments());
+        if (!incremental) {
+            int index = 0;
+            for (String key : keys) {
+                boolean first = index == 0;
+                boolean last = ++index == keys.size();
+                dump(config, key, first ? header : null, last ? footer : null, out);
+            }
+            return;
+        }
+        List<Object> options = Arrays.asList(config.options().indent(), config.options().width(),
+                config.options().parseComments());
+        if (!options.equals(this.options)) {
+            chunks.clear();
+            this.options = options;
+        }
+        Map<String, Chunk> written = new HashMap<>((int) (keys.size() / 0.75f) + 1);
+        int index = 0;
+        for (String key : keys) {
+            boolean first = index == 0;
+            boolean last = ++index == keys.size();
+            // The header and footer are part of the text of the first and last key.
+            List<Object> state = Arrays.asList(first ? new ArrayList<>(header) : null, last ? new ArrayList<>(footer) : null);
+            Chunk chunk = chunks.get(key);
+            if (chunk == null || changed == null || changed.contains(key) || !chunk.state.equals(state)) {
+                StringWriter text = new StringWriter();
+                dump(config, key, first ? header : null, last ? footer : null, text);
+                chunk = new Chunk(state, text.toString());
+            }
+            written.put(key, chunk);
+            out.write(chunk.text);
+        }
+        chunks.clear();
+        chunks.putAll(written);
+    }
+
+    /**
+     * Drops the text of every key, for example after the configuration was replaced.
+     */
+    void clear() {
+        chunks.clear();
+    }
+
+    /**
+     * Serializes one top-level key as a document of its own, laid out like {@link YamlConfiguration#saveToString()}
+     * lays out the whole configuration: the header above the first key, followed by a blank line, and the footer
+     * below the last one.
+     */
+    private void dump(Yaml config, String key, List<String> header, List<String> footer, Writer out) {
+        List<NodeTuple> tuples = new ArrayList<>(1);
+        tuples.add(entry(config, key));
+        MappingNode node = new MappingNode(Tag.MAP, tuples, DumperOptions.FlowStyle.BLOCK);
+        if (header != null && !header.isEmpty()) {
+            List<String> lines = new ArrayList<>(header);
+            lines.add(null);
+            node.setBlockComments(commentLines(lines, CommentType.BLOCK));
+        }
+        if (footer != null) node.setEndComments(commentLines(footer, CommentType.BLOCK));
+        yaml.serialize(node, out);
+    }
+
+    private MappingNode toNode(ConfigurationSection section) {
+        List<NodeTuple> tuples = new ArrayList<>();
+        for (String key : section.getKeys(false)) {
+            tuples.add(entry(section, key));
+        }
+        return new MappingNode(Tag.MAP, tuples, DumperOptions.FlowStyle.BLOCK);
+    }
+
+    private NodeTuple entry(ConfigurationSection section, String key) {
+        Object value = section.get(key);
+        Node keyNode = representer.represent(key);
+        Node valueNode = value instanceof ConfigurationSection ? toNode((ConfigurationSection) value) : representer.represent(value);
+        keyNode.setBlockComments(commentLines(section.getComments(key), CommentType.BLOCK));
+        List<CommentLine> inline = commentLines(section.getInlineComments(key), CommentType.IN_LINE);
+        if (valueNode instanceof MappingNode || valueNode instanceof SequenceNode) {
+            keyNode.setInLineComments(inline);
+        } else {
+            valueNode.setInLineComments(inline);
+        }
+        return new NodeTuple(keyNode, valueNode);
+    }
+
+    /**
+     * Converts comments like Bukkit does: a null comment is a blank line, and other comments get a space after the {@code #}.
+     */
+    private static List<CommentLine> commentLines(List<String> comments, CommentType type) {
+        List<CommentLine> lines = new ArrayList<>(comments.size());
+        for (String comment : comments) {
+            if (comment == null) {
+                lines.add(new CommentLine(null, null, "", CommentType.BLANK_LINE));
+            } else {
+                lines.add(new CommentLine(null, null, comment.isEmpty() ? comment : " " + comment, type));
+            }
+        }
+        return lines;
+    }
+
+    private static final class Chunk {
+
+        private final List<Object> state;
+        private final String text;
+
+        private Chunk(List<Object> state, String text) {
+            this.state = state;
+            this.text = text;
+        }
+    }
+}
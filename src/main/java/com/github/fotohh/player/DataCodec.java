@@ -0,0 +1,68 @@
+package com.github.fotohh.player;
+
+import java.util.function.Function;
+
+/**
+ * The DataCodec interface converts the value of a {@link DataKey} to and from the form it is stored in.
+ * Stored forms are the values a {@link PlayerDataStorage} can hold: Strings, numbers, booleans, lists,
+ * maps and configuration serializable objects.
+ *
+ * @param <T> The type of the value.
+ * @since 3.1.0
+ */
+public interface DataCodec<T> {
+
+    /**
+     * Converts a value to its stored form.
+     *
+     * @param value The value, never null.
+     * @return The stored form.
+     * @since 3.1.0
+     */
+    Object encode(T value);
+
+    /**
+     * Converts a stored form back to a value.
+     *
+     * @param stored The stored form, never null.
+     * @return The value.
+     * @throws RuntimeException if the stored form is not valid, in which case the default value is used.
+     * @since 3.1.0
+     */
+    T decode(Object stored);
+
+    /**
+     * Creates a codec that stores values as they are, casting them back to their type.
+     *
+     * @param type The type of the value.
+     * @param <T>  The type of the value.
+     * @return The DataCodec.
+     * @since 3.1.0
+     */
+    static <T> DataCodec<T> identity(Class<T> type) {
+        return of(value -> value, type::cast);
+    }
+
+    /**
+     * Creates a codec from two functions.
+     *
+     * @param encoder Converts a value to its stored form.
+     * @param decoder Converts a stored form to a value.
+     * @param <T>     The type of the value.
+     * @return The DataCodec.
+     * @since 3.1.0
+     */
+    static <T> DataCodec<T> of(Function<T, Object> encoder, Function<Object, T> decoder) {
+        return new DataCodec<T>() {
+            @Override
+            public Object encode(T value) {
+                return encoder.apply(value);
+            }
+
+            @Override
+            public T decode(Object stored) {
+                return decoder.apply(stored);
+            }
+        };
+    }
+}
@@ -0,0 +1,280 @@
+package com.github.fotohh.player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The DataKey class is a typed key of player data in a {@link PlayerDataManager}. Every key has a slot,
+ * and the data of a player stores ints, longs, doubles and booleans unboxed in the slots of their keys,
+ * so reading and changing them does not allocate. Other values are converted with a {@link DataCodec}
+ * when they are written to or read from the storage.
+ * <p>
+ * A key is identified by its name, which is also its key in the storage and in the untyped methods of
+ * {@link PlayerDataManager}. Values equal to the default value of their key are not stored.
+ * Keys are usually kept in static final fields:
+ * <pre>{@code
+ * public static final DataKey<Integer> KILLS = DataKey.ofInt("stats.kills", 0);
+ * manager.incrementInt(uuid, KILLS);
+ * }</pre>
+ *
+ * @param <T> The type of the value.
+ * @since 3.1.0
+ */
+public final class DataKey<T> {
+
+    static final int MAX_KEYS = PlayerSession.PAGE_SIZE * PlayerSession.MAX_PAGES;
+
+    private static final Map<String, DataKey<?>> BY_NAME = new ConcurrentHashMap<>();
+    private static final List<DataKey<?>> BY_SLOT = new ArrayList<>();
+
+    /**
+     * How the values of a key are held in memory.
+     */
+    enum Kind {
+        INT, LONG, DOUBLE, BOOLEAN, OBJECT
+    }
+
+    private final String name;
+    private final Kind kind;
+    private final T defaultValue;
+    private final DataCodec<T> codec;
+    private final long defaultBits;
+    private final int slot;
+
+    private DataKey(String name, Kind kind, T defaultValue, DataCodec<T> codec, long defaultBits, int slot) {
+        this.name = name;
+        this.kind = kind;
+        this.defaultValue = defaultValue;
+        this.codec = codec;
+        this.defaultBits = defaultBits;
+        this.slot = slot;
+    }
+
+    /**
+     * Creates an int key.
+     *
+     * @param name         The name of the key.
+     * @param defaultValue The value of players that have none.
+     * @return The DataKey.
+     * @throws IllegalArgumentException if a key with the same name but another type exists.
+     * @since 3.1.0
+     */
+    public static DataKey<Integer> ofInt(String name, int defaultValue) {
+        return create(name, Kind.INT, defaultValue, DataCodec.of(value -> value, stored -> ((Number) stored).intValue()), defaultValue);
+    }
+
+    /**
+     * Creates a long key.
+     *
+     * @param name         The name of the key.
+     * @param defaultValue The value of players that have none.
+     * @return The DataKey.
+     * @throws IllegalArgumentException if a key with the same name but another type exists.
+     * @since 3.1.0
+     */
+    public static DataKey<Long> ofLong(String name, long defaultValue) {
+        return create(name, Kind.LONG, defaultValue, DataCodec.of(value -> value, stored -> ((Number) stored).longValue()), defaultValue);
+    }
+
+    /**
+     * Creates a double key.
+     *
+     * @param name         The name of the key.
+     * @param defaultValue The value of players that have none.
+     * @return The DataKey.
+     * @throws IllegalArgumentException if a key with the same name but another type exists.
+     * @since 3.1.0
+     */
+    public static DataKey<Double> ofDouble(String name, double defaultValue) {
+        return create(name, Kind.DOUBLE, defaultValue, DataCodec.of(value -> value, stored -> ((Number) stored).doubleValue()),
+                Double.doubleToRawLongBits(defaultValue));
+    }
+
+    /**
+     * Creates a boolean key.
+     *
+     * @param name         The name of the key.
+     * @param defaultValue The value of players that have none.
+     * @return The DataKey.
+     * @throws IllegalArgumentException if a key with the same name but another type exists.
+     * @since 3.1.0
+     */
+    public static DataKey<Boolean> ofBoolean(String name, boolean defaultValue) {
+        return create(name, Kind.BOOLEAN, defaultValue, DataCodec.of(value -> value,
+                stored -> stored instanceof Boolean ? (Boolean) stored : Boolean.parseBoolean(stored.toString())), defaultValue ? 1 : 0);
+    }
+
+    /**
+     * Creates a String key.
+     *
+     * @param name         The name of the key.
+     * @param defaultValue The value of players that have none, may be null.
+     * @return The DataKey.
+     * @throws IllegalArgumentException if a key with the same name but another type exists.
+     * @since 3.1.0
+     */
+    public static DataKey<String> ofString(String name, String defaultValue) {
+        return of(name, DataCodec.of(value -> value, Object::toString), defaultValue);
+    }
+
+    /**
+     * Creates a UUID key, stored as a String.
+     *
+     * @param name The name of the key.
+     * @return The DataKey, with null as default value.
+     * @throws IllegalArgumentException if a key with the same name but another type exists.
+     * @since 3.1.0
+     */
+    public static DataKey<UUID> ofUUID(String name) {
+        return of(name, DataCodec.of(UUID::toString, stored -> UUID.fromString(stored.toString())), null);
+    }
+
+    /**
+     * Creates a key of any type, converted with the given codec.
+     *
+     * @param name         The name of the key.
+     * @param codec        The codec converting the values to their stored form.
+     * @param defaultValue The value of players that have none, may be null.
+     * @param <T>          The type of the value.
+     * @return The DataKey.
+     * @throws IllegalArgumentException if a key with the same name exists.
+     * @since 3.1.0
+     */
+    public static <T> DataKey<T> of(String name, DataCodec<T> codec, T defaultValue) {
+        return create(name, Kind.OBJECT, defaultValue, codec, 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static synchronized <T> DataKey<T> create(String name, Kind kind, T defaultValue, DataCodec<T> codec, long defaultBits) {
+        DataKey<?> existing = BY_NAME.get(name);
+        if (existing != null) {
+            // Primitive keys may be declared in several places; they are equal if their type and default are.
+            if (kind != Kind.OBJECT && existing.kind == kind && existing.defaultBits == defaultBits) return (DataKey<T>) existing;
+            throw new IllegalArgumentException("A data key named " + name + " already exists.");
+        }
+        if (BY_SLOT.size() == MAX_KEYS) {
+            throw new IllegalStateException("No more than " + MAX_KEYS + " data keys can be created.");
+        }
+        DataKey<T> key = new DataKey<>(name, kind, defaultValue, codec, defaultBits, BY_SLOT.size());
+        BY_SLOT.add(key);
+        BY_NAME.put(name, key);
+        return key;
+    }
+
+    /**
+     * Gets the key with the given name.
+     *
+     * @return The key, or null if there is none.
+     */
+    static DataKey<?> byName(String name) {
+        return BY_NAME.get(name);
+    }
+
+    /**
+     * Gets the keys whose name starts with the given prefix.
+     */
+    static synchronized List<DataKey<?>> byPrefix(String prefix) {
+        List<DataKey<?>> keys = new ArrayList<>();
+        for (DataKey<?> key : BY_SLOT) {
+            if (key.name.startsWith(prefix)) keys.add(key);
+        }
+        return keys;
+    }
+
+    static synchronized DataKey<?> bySlot(int slot) {
+        return slot < BY_SLOT.size() ? BY_SLOT.get(slot) : null;
+    }
+
+    static synchronized int count() {
+        return BY_SLOT.size();
+    }
+
+    /**
+     * Gets the name of the key.
+     *
+     * @return The name, which is also its key in the storage.
+     * @since 3.1.0
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the value of players that have none.
+     *
+     * @return The default value.
+     * @since 3.1.0
+     */
+    public T getDefaultValue() {
+        return defaultValue;
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+
+    DataCodec<T> getCodec() {
+        return codec;
+    }
+
+    long getDefaultBits() {
+        return defaultBits;
+    }
+
+    int getSlot() {
+        return slot;
+    }
+
+    /**
+     * Converts the bits of a primitive slot to the boxed value.
+     */
+    Object box(long bits) {
+        switch (kind) {
+            case INT:
+                return (int) bits;
+            case LONG:
+                return bits;
+            case DOUBLE:
+                return Double.longBitsToDouble(bits);
+            default:
+                return bits != 0;
+        }
+    }
+
+    /**
+     * Converts a boxed value to the bits of a primitive slot.
+     *
+     * @throws IllegalArgumentException if the value is not a whole number of the range of an int or long key.
+     */
+    long unbox(Object value) {
+        switch (kind) {
+            case INT:
+                long integer = wholeNumber(value);
+                if (integer < Integer.MIN_VALUE || integer > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException(value + " does not fit in an int");
+                }
+                return ((Number) value).intValue();
+            case LONG:
+                return wholeNumber(value);
+            case DOUBLE:
+                return Double.doubleToRawLongBits(((Number) value).doubleValue());
+            default:
+                return (Boolean) value ? 1 : 0;
+        }
+    }
+
+    private static long wholeNumber(Object value) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        throw new IllegalArgumentException(value + " is not a whole number");
+    }
+
+    @Override
+    public String toString() {
+        return "DataKey{" + name + ", " + kind + "}";
+    }
+}
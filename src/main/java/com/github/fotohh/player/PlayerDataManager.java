@@ -1,47 +1,176 @@
 
 package com.github.fotohh.player;
 
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerLoginEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongUnaryOperator;
+import java.util.function.UnaryOperator;
+import java.util.logging.Level;
 
 /**
  * The PlayerDataManager class handles saving, retrieving, and removing player-specific data
- * to/from a YAML file for a Bukkit plugin.
+ * for a Bukkit plugin, in a {@link PlayerDataStorage}.
  * It provides methods to interact with player data using their unique identifiers (UUIDs).
+ * <p>
+ * By default every player has their own YAML file, see {@link YamlPlayerDataStorage}. Data from the single
+ * {@code playerdata.yml} used by older versions is moved into the storage once, when the manager is created.
+ * <p>
+ * The data of a player is read while they log in, on the login thread, and kept in memory until they quit
+ * or their login is refused.
+ * Reads and changes are memory operations that are safe from any thread. Changed data is written
+ * asynchronously on a timer and when the player quits, after which the data is released. Data of offline
+ * players is read on first access and released after the next flush. Call {@link #close()} in
+ * {@code onDisable} to write the remaining changes.
+ * <p>
+ * Values can be accessed by name, or by a typed {@link DataKey} which keeps numbers and booleans unboxed.
+ * Both refer to the same value if the name of the key is used. The values of DataKeys can also be changed
+ * atomically, for example with {@link #addDouble(UUID, DataKey, double)}, so counters and balances stay
+ * correct when they are updated from several threads.
  */
-public class PlayerDataManager {
+public class PlayerDataManager implements Listener {
+
+    private static final String LEGACY_FILE = "playerdata.yml";
+    private static final long DEFAULT_FLUSH_INTERVAL = 20 * 30;
+    private static final int MIGRATION_BATCH_SIZE = 500;
 
     private final JavaPlugin plugin;
-    private File dataFile;
-    private FileConfiguration dataConfig;
+    private final PlayerDataStorage storage;
+    private final Map<UUID, PlayerSession> sessions = new ConcurrentHashMap<>();
+    private final Object flushLock = new Object();
+    private final BukkitTask flushTask;
 
     /**
      * Constructs a PlayerDataManager object with the specified JavaPlugin instance.
+     * Changed data is written every 30 seconds.
      *
      * @param plugin The JavaPlugin instance associated with the PlayerDataManager.
      */
     public PlayerDataManager(JavaPlugin plugin) {
+        this(plugin, new YamlPlayerDataStorage(plugin), DEFAULT_FLUSH_INTERVAL);
+    }
+
+    /**
+     * Constructs a PlayerDataManager object that keeps its data in the given storage and writes changed
+     * data at the given interval.
+     *
+     * @param plugin        The JavaPlugin instance associated with the PlayerDataManager.
+     * @param storage       The storage to read and write player data with.
+     * @param flushInterval The interval between writes of changed data, in ticks.
+     * @since 3.1.0
+     */
+    public PlayerDataManager(JavaPlugin plugin, PlayerDataStorage storage, long flushInterval) {
+        if (flushInterval <= 0) {
+            throw new IllegalArgumentException("The flush interval must be positive.");
+        }
         this.plugin = plugin;
-        initDataFile();
+        this.storage = storage;
+        migrateLegacyFile();
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+        this.flushTask = plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin, () -> flush(), flushInterval, flushInterval);
     }
 
     /**
-     * Initializes the data file for player data.
-     * If the file does not exist, it will be created by copying the default "playerdata.yml"
-     * resource from the plugin's JAR file. The configuration data is loaded from the file.
+     * Moves the data of every player in the legacy "playerdata.yml" into the storage, in batches.
+     * Players that already have data keep it. The legacy file is renamed afterwards, so this only runs once.
      */
-    private void initDataFile() {
-        dataFile = new File(plugin.getDataFolder(), "playerdata.yml");
-        if (!dataFile.exists()) {
-            plugin.saveResource("playerdata.yml", false);
+    private void migrateLegacyFile() {
+        File legacyFile = new File(plugin.getDataFolder(), LEGACY_FILE);
+        if (!legacyFile.exists()) return;
+
+        FileConfiguration legacyConfig = YamlConfiguration.loadConfiguration(legacyFile);
+        int migrated = 0;
+        List<PlayerDataStorage.Changes> batch = new ArrayList<>();
+        try {
+            for (String key : legacyConfig.getKeys(false)) {
+                UUID uuid;
+                try {
+                    uuid = UUID.fromString(key);
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+                ConfigurationSection section = legacyConfig.getConfigurationSection(key);
+                if (section == null || !storage.load(uuid).isEmpty()) continue;
+                Map<String, Object> values = new HashMap<>();
+                for (Map.Entry<String, Object> entry : section.getValues(true).entrySet()) {
+                    if (!(entry.getValue() instanceof ConfigurationSection)) values.put(entry.getKey(), entry.getValue());
+                }
+                batch.add(new PlayerDataStorage.Changes(uuid, values, values.keySet()));
+                if (batch.size() == MIGRATION_BATCH_SIZE) {
+                    storage.save(batch);
+                    migrated += batch.size();
+                    batch.clear();
+                }
+            }
+            storage.save(batch);
+            migrated += batch.size();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Unable to migrate " + legacyFile.getPath() + ", it will be migrated again.", e);
+            return;
         }
+        if (!legacyFile.renameTo(new File(plugin.getDataFolder(), LEGACY_FILE + ".migrated"))) {
+            plugin.getLogger().warning("Unable to rename " + legacyFile.getPath() + " after migrating it, it will be migrated again.");
+        }
+        plugin.getLogger().info("Migrated the data of " + migrated + " players from " + legacyFile.getPath() + ".");
+    }
 
-        dataConfig = YamlConfiguration.loadConfiguration(dataFile);
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) return;
+        try {
+            getSession(event.getUniqueId(), true);
+        } catch (IllegalStateException e) {
+            // Letting the player join with empty data would overwrite their stored data on the next flush.
+            plugin.getLogger().log(Level.SEVERE, e.getMessage(), e.getCause());
+            event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_OTHER, "Unable to load your data, please try again later.");
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onLogin(PlayerLoginEvent event) {
+        if (event.getResult() == PlayerLoginEvent.Result.ALLOWED) return;
+        // The player was refused after their data was loaded, for example by the whitelist, so they will not quit.
+        UUID uuid = event.getPlayer().getUniqueId();
+        if (plugin.getServer().getPlayer(uuid) == null) release(uuid);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        release(event.getPlayer().getUniqueId());
+    }
+
+    /**
+     * Marks the session of a player who left as offline and writes and evicts it asynchronously.
+     */
+    private void release(UUID uuid) {
+        PlayerSession session = sessions.get(uuid);
+        if (session == null) return;
+        session.online = false;
+        if (plugin.isEnabled()) {
+            plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> flush(Collections.singletonList(session)));
+        }
     }
 
     /**
@@ -52,9 +181,26 @@ public class PlayerDataManager {
      * @param value  The value to be stored for the specified key.
      */
     public void savePlayerData(Player player, String key, Object value) {
-        String playerId = player.getUniqueId().toString();
-        dataConfig.set(playerId + "." + key, value);
-        saveDataFile();
+        savePlayerData(player.getUniqueId(), key, value);
+    }
+
+    /**
+     * Saves player-specific data in memory. It is written to the file of the player by the next flush.
+     * Like in a configuration, this replaces the data below the key, and a map or section is saved as the
+     * data below the key.
+     *
+     * @param uuid  The UUID of the player for whom the data is being saved.
+     * @param key   The key identifying the data field in the data file.
+     * @param value The value to be stored for the specified key, or null to remove it and the data below it.
+     * @since 3.1.0
+     */
+    public void savePlayerData(UUID uuid, String key, Object value) {
+        PlayerSession session = beginWrite(uuid);
+        try {
+            session.set(key, value);
+        } finally {
+            session.endWrite();
+        }
     }
 
     /**
@@ -65,8 +211,21 @@ public class PlayerDataManager {
      * @return The value associated with the specified key, or null if the key is not found.
      */
     public Object getPlayerData(Player player, String key) {
-        String playerId = player.getUniqueId().toString();
-        return dataConfig.get(playerId + "." + key);
+        return getPlayerData(player.getUniqueId(), key);
+    }
+
+    /**
+     * Retrieves player-specific data, reading the file of the player if it is not loaded yet.
+     * A key with data below it returns a copy of that data as a ConfigurationSection;
+     * changes to the copy are not saved.
+     *
+     * @param uuid The UUID of the player for whom the data is being retrieved.
+     * @param key  The key identifying the data field in the data file.
+     * @return The value associated with the specified key, or null if the key is not found.
+     * @since 3.1.0
+     */
+    public Object getPlayerData(UUID uuid, String key) {
+        return getSession(uuid, false).get(key);
     }
 
     /**
@@ -76,20 +235,543 @@ public class PlayerDataManager {
      * @param key    The key identifying the data field in the data file.
      */
     public void removePlayerData(Player player, String key) {
-        String playerId = player.getUniqueId().toString();
-        dataConfig.set(playerId + "." + key, null);
-        saveDataFile();
+        removePlayerData(player.getUniqueId(), key);
+    }
+
+    /**
+     * Removes player-specific data in memory, including the data below the key.
+     * The removal is written to the file of the player by the next flush.
+     *
+     * @param uuid The UUID of the player for whom the data is being removed.
+     * @param key  The key identifying the data field in the data file.
+     * @since 3.1.0
+     */
+    public void removePlayerData(UUID uuid, String key) {
+        savePlayerData(uuid, key, null);
+    }
+
+    /**
+     * Gets the value of an int key.
+     *
+     * @param uuid The UUID of the player.
+     * @param key  The key of the value.
+     * @return The value, or the default value of the key if the player has none.
+     * @since 3.1.0
+     */
+    public int getInt(UUID uuid, DataKey<Integer> key) {
+        return (int) getSession(uuid, false).getBits(key, DataKey.Kind.INT);
+    }
+
+    /**
+     * Sets the value of an int key.
+     *
+     * @param uuid  The UUID of the player.
+     * @param key   The key of the value.
+     * @param value The new value.
+     * @since 3.1.0
+     */
+    public void setInt(UUID uuid, DataKey<Integer> key, int value) {
+        PlayerSession session = beginWrite(uuid);
+        try {
+            session.setBits(key, DataKey.Kind.INT, value);
+        } finally {
+            session.endWrite();
+        }
+    }
+
+    /**
+     * Gets the value of a long key.
+     *
+     * @param uuid The UUID of the player.
+     * @param key  The key of the value.
+     * @return The value, or the default value of the key if the player has none.
+     * @since 3.1.0
+     */
+    public long getLong(UUID uuid, DataKey<Long> key) {
+        return getSession(uuid, false).getBits(key, DataKey.Kind.LONG);
+    }
+
+    /**
+     * Sets the value of a long key.
+     *
+     * @param uuid  The UUID of the player.
+     * @param key   The key of the value.
+     * @param value The new value.
+     * @since 3.1.0
+     */
+    public void setLong(UUID uuid, DataKey<Long> key, long value) {
+        PlayerSession session = beginWrite(uuid);
+        try {
+            session.setBits(key, DataKey.Kind.LONG, value);
+        } finally {
+            session.endWrite();
+        }
     }
 
     /**
-     * Saves the data configuration to the data file.
-     * If any errors occur during the save process, they will be printed to the console.
+     * Gets the value of a double key.
+     *
+     * @param uuid The UUID of the player.
+     * @param key  The key of the value.
+     * @return The value, or the default value of the key if the player has none.
+     * @since 3.1.0
+     */
+    public double getDouble(UUID uuid, DataKey<Double> key) {
+        return Double.longBitsToDouble(getSession(uuid, false).getBits(key, DataKey.Kind.DOUBLE));
+    }
+
+    /**
+     * Sets the value of a double key.
+     *
+     * @param uuid  The UUID of the player.
+     * @param key   The key of the value.
+     * @param value The new value.
+     * @since 3.1.0
+     */
+    public void setDouble(UUID uuid, DataKey<Double> key, double value) {
+        PlayerSession session = beginWrite(uuid);
+        try {
+            session.setBits(key, DataKey.Kind.DOUBLE, Double.doubleToRawLongBits(value));
+        } finally {
+            session.endWrite();
+        }
+    }
+
+    /**
+     * Gets the value of a boolean key.
+     *
+     * @param uuid The UUID of the player.
+     * @param key  The key of the value.
+     * @return The value, or the default value of the key if the player has none.
+     * @since 3.1.0
+     */
+    public boolean getBoolean(UUID uuid, DataKey<Boolean> key) {
+        return getSession(uuid, false).getBits(key, DataKey.Kind.BOOLEAN) != 0;
+    }
+
+    /**
+     * Sets the value of a boolean key.
+     *
+     * @param uuid  The UUID of the player.
+     * @param key   The key of the value.
+     * @param value The new value.
+     * @since 3.1.0
+     */
+    public void setBoolean(UUID uuid, DataKey<Boolean> key, boolean value) {
+        PlayerSession session = beginWrite(uuid);
+        try {
+            session.setBits(key, DataKey.Kind.BOOLEAN, value ? 1 : 0);
+        } finally {
+            session.endWrite();
+        }
+    }
+
+    /**
+     * Gets the value of a key of any type. Values of int, long, double and boolean keys are boxed;
+     * use their typed getters to avoid that.
+     *
+     * @param uuid The UUID of the player.
+     * @param key  The key of the value.
+     * @param <T>  The type of the value.
+     * @return The value, or the default value of the key if the player has none.
+     * @since 3.1.0
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(UUID uuid, DataKey<T> key) {
+        return (T) getSession(uuid, false).get(key.getName());
+    }
+
+    /**
+     * Sets the value of a key of any type.
+     *
+     * @param uuid  The UUID of the player.
+     * @param key   The key of the value.
+     * @param value The new value, or null to reset it to the default value.
+     * @param <T>   The type of the value.
+     * @since 3.1.0
+     */
+    public <T> void set(UUID uuid, DataKey<T> key, T value) {
+        PlayerSession session = beginWrite(uuid);
+        try {
+            session.set(key.getName(), value);
+        } finally {
+            session.endWrite();
+        }
+    }
+
+    /**
+     * Atomically adds to the value of an int key. Overflow wraps around like int arithmetic.
+     *
+     * @param uuid  The UUID of the player.
+     * @param key   The key of the value.
+     * @param delta The amount to add, may be negative.
+     * @return The new value.
+     * @since 3.1.0
+     */
+    public int addInt(UUID uuid, DataKey<Integer> key, int delta) {
+        PlayerSession session = beginWrite(uuid);
+        try {
+            return session.addInt(key, delta);
+        } finally {
+            session.endWrite();
+        }
+    }
+
+    /**
+     * Atomically adds one to the value of an int key.
+     *
+     * @param uuid The UUID of the player.
+     * @param key  The key of the value.
+     * @return The new value.
+     * @since 3.1.0
+     */
+    public int incrementInt(UUID uuid, DataKey<Integer> key) {
+        return addInt(uuid, key, 1);
+    }
+
+    /**
+     * Atomically adds to the value of a long key.
+     *
+     * @param uuid  The UUID of the player.
+     * @param key   The key of the value.
+     * @param delta The amount to add, may be negative.
+     * @return The new value.
+     * @since 3.1.0
      */
-    private void saveDataFile() {
+    public long addLong(UUID uuid, DataKey<Long> key, long delta) {
+        PlayerSession session = beginWrite(uuid);
+        try {
+            return session.addLong(key, delta);
+        } finally {
+            session.endWrite();
+        }
+    }
+
+    /**
+     * Atomically adds one to the value of a long key.
+     *
+     * @param uuid The UUID of the player.
+     * @param key  The key of the value.
+     * @return The new value.
+     * @since 3.1.0
+     */
+    public long incrementLong(UUID uuid, DataKey<Long> key) {
+        return addLong(uuid, key, 1);
+    }
+
+    /**
+     * Atomically adds to the value of a double key, such as a balance.
+     *
+     * @param uuid  The UUID of the player.
+     * @param key   The key of the value.
+     * @param delta The amount to add, may be negative.
+     * @return The new value.
+     * @since 3.1.0
+     */
+    public double addDouble(UUID uuid, DataKey<Double> key, double delta) {
+        PlayerSession session = beginWrite(uuid);
+        try {
+            return session.addDouble(key, delta);
+        } finally {
+            session.endWrite();
+        }
+    }
+
+    /**
+     * Atomically sets the value of an int key if it is the expected value.
+     *
+     * @param uuid   The UUID of the player.
+     * @param key    The key of the value.
+     * @param expect The expected value.
+     * @param update The new value.
+     * @return true if the value was set, false if it was not the expected value.
+     * @since 3.1.0
+     */
+    public boolean compareAndSetInt(UUID uuid, DataKey<Integer> key, int expect, int update) {
+        PlayerSession session = beginWrite(uuid);
+        try {
+            return session.compareAndSetBits(key, DataKey.Kind.INT, expect, update);
+        } finally {
+            session.endWrite();
+        }
+    }
+
+    /**
+     * Atomically sets the value of a long key if it is the expected value.
+     *
+     * @param uuid   The UUID of the player.
+     * @param key    The key of the value.
+     * @param expect The expected value.
+     * @param update The new value.
+     * @return true if the value was set, false if it was not the expected value.
+     * @since 3.1.0
+     */
+    public boolean compareAndSetLong(UUID uuid, DataKey<Long> key, long expect, long update) {
+        PlayerSession session = beginWrite(uuid);
+        try {
+            return session.compareAndSetBits(key, DataKey.Kind.LONG, expect, update);
+        } finally {
+            session.endWrite();
+        }
+    }
+
+    /**
+     * Atomically sets the value of a double key if it is the expected value. Values are compared like
+     * {@link Double#equals(Object)} does, so 0.0 and -0.0 differ and NaN equals NaN.
+     *
+     * @param uuid   The UUID of the player.
+     * @param key    The key of the value.
+     * @param expect The expected value.
+     * @param update The new value.
+     * @return true if the value was set, false if it was not the expected value.
+     * @since 3.1.0
+     */
+    public boolean compareAndSetDouble(UUID uuid, DataKey<Double> key, double expect, double update) {
+        PlayerSession session = beginWrite(uuid);
+        try {
+            return session.compareAndSetBits(key, DataKey.Kind.DOUBLE,
+                    Double.doubleToRawLongBits(expect), Double.doubleToRawLongBits(update));
+        } finally {
+            session.endWrite();
+        }
+    }
+
+    /**
+     * Atomically sets the value of a key that is not an int, long, double or boolean key
+     * if it equals the expected value.
+     *
+     * @param uuid   The UUID of the player.
+     * @param key    The key of the value.
+     * @param expect The expected value, compared with {@link Object#equals(Object)}.
+     * @param update The new value.
+     * @param <T>    The type of the value.
+     * @return true if the value was set, false if it did not equal the expected value.
+     * @since 3.1.0
+     */
+    public <T> boolean compareAndSet(UUID uuid, DataKey<T> key, T expect, T update) {
+        PlayerSession session = beginWrite(uuid);
+        try {
+            return session.compareAndSetObject(key, expect, update);
+        } finally {
+            session.endWrite();
+        }
+    }
+
+    /**
+     * Atomically updates the value of an int key. The function may be called more than once when other
+     * threads change the value at the same time, so it must not have side effects.
+     *
+     * @param uuid     The UUID of the player.
+     * @param key      The key of the value.
+     * @param function The function computing the new value from the current one.
+     * @return The new value.
+     * @since 3.1.0
+     */
+    public int updateAndGetInt(UUID uuid, DataKey<Integer> key, IntUnaryOperator function) {
+        PlayerSession session = beginWrite(uuid);
+        try {
+            return (int) session.updateBits(key, DataKey.Kind.INT, bits -> function.applyAsInt((int) bits));
+        } finally {
+            session.endWrite();
+        }
+    }
+
+    /**
+     * Atomically updates the value of a long key. The function may be called more than once when other
+     * threads change the value at the same time, so it must not have side effects.
+     *
+     * @param uuid     The UUID of the player.
+     * @param key      The key of the value.
+     * @param function The function computing the new value from the current one.
+     * @return The new value.
+     * @since 3.1.0
+     */
+    public long updateAndGetLong(UUID uuid, DataKey<Long> key, LongUnaryOperator function) {
+        PlayerSession session = beginWrite(uuid);
+        try {
+            return session.updateBits(key, DataKey.Kind.LONG, function);
+        } finally {
+            session.endWrite();
+        }
+    }
+
+    /**
+     * Atomically updates the value of a double key. The function may be called more than once when other
+     * threads change the value at the same time, so it must not have side effects.
+     *
+     * @param uuid     The UUID of the player.
+     * @param key      The key of the value.
+     * @param function The function computing the new value from the current one.
+     * @return The new value.
+     * @since 3.1.0
+     */
+    public double updateAndGetDouble(UUID uuid, DataKey<Double> key, DoubleUnaryOperator function) {
+        PlayerSession session = beginWrite(uuid);
+        try {
+            return Double.longBitsToDouble(session.updateBits(key, DataKey.Kind.DOUBLE,
+                    bits -> Double.doubleToRawLongBits(function.applyAsDouble(Double.longBitsToDouble(bits)))));
+        } finally {
+            session.endWrite();
+        }
+    }
+
+    /**
+     * Atomically updates the value of a key that is not an int, long, double or boolean key. The function may be
+     * called more than once when other threads change the value at the same time, so it must not have side effects
+     * and must return a new value rather than change the current one.
+     *
+     * @param uuid     The UUID of the player.
+     * @param key      The key of the value.
+     * @param function The function computing the new value from the current one.
+     * @param <T>      The type of the value.
+     * @return The new value.
+     * @since 3.1.0
+     */
+    public <T> T updateAndGet(UUID uuid, DataKey<T> key, UnaryOperator<T> function) {
+        PlayerSession session = beginWrite(uuid);
+        try {
+            return session.updateObject(key, function);
+        } finally {
+            session.endWrite();
+        }
+    }
+
+    /**
+     * Checks if the data of a player is held in memory.
+     *
+     * @param uuid The UUID of the player.
+     * @return true if the data is loaded.
+     * @since 3.1.0
+     */
+    public boolean isLoaded(UUID uuid) {
+        return sessions.containsKey(uuid);
+    }
+
+    /**
+     * Writes the changed data of every player and releases the data of players that are offline.
+     * This runs on a timer; calling it directly blocks until the files are written.
+     *
+     * @since 3.1.0
+     */
+    public void flush() {
+        flush(new ArrayList<>(sessions.values()));
+    }
+
+    /**
+     * Writes the data of a player if it changed and releases it, unless the player is online.
+     *
+     * @param uuid The UUID of the player.
+     * @since 3.1.0
+     */
+    public void unload(UUID uuid) {
+        PlayerSession session = sessions.get(uuid);
+        if (session != null) flush(Collections.singletonList(session));
+    }
+
+    /**
+     * Stops the flush timer, writes the changed data of every player and closes the storage.
+     * Call this in {@code onDisable}.
+     *
+     * @since 3.1.0
+     */
+    public void close() {
+        flushTask.cancel();
+        flush();
+        storage.close();
+    }
+
+    /**
+     * Gets the storage the data is kept in.
+     *
+     * @return The PlayerDataStorage of this manager.
+     * @since 3.1.0
+     */
+    public PlayerDataStorage getStorage() {
+        return storage;
+    }
+
+    /**
+     * Writes the changes of the sessions as one batch, then evicts the sessions of offline players.
+     */
+    private void flush(List<PlayerSession> targets) {
+        synchronized (flushLock) {
+            List<PlayerSession> changed = new ArrayList<>();
+            List<PlayerDataStorage.Changes> changes = new ArrayList<>();
+            for (PlayerSession session : targets) {
+                Set<String> keys;
+                try {
+                    keys = session.drainDirtyKeys();
+                } catch (RuntimeException e) {
+                    // Only this player is not written; the session keeps its changes and is not evicted.
+                    plugin.getLogger().log(Level.SEVERE, "Unable to encode the data of " + session.uuid + ", retrying on the next flush.", e);
+                    continue;
+                }
+                if (keys.isEmpty()) continue;
+                changed.add(session);
+                changes.add(new PlayerDataStorage.Changes(session.uuid, session.values, keys));
+            }
+            if (!changes.isEmpty()) {
+                try {
+                    storage.save(changes);
+                } catch (IOException | RuntimeException e) {
+                    plugin.getLogger().log(Level.SEVERE, "Unable to save the data of " + changes.size() + " players, retrying on the next flush.", e);
+                    for (int i = 0; i < changed.size(); i++) {
+                        changed.get(i).dirtyKeys.addAll(changes.get(i).getChangedKeys());
+                    }
+                    return;
+                }
+            }
+            for (PlayerSession session : targets) {
+                synchronized (session) {
+                    if (session.tryEvict()) sessions.remove(session.uuid, session);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the session of a player, reading their file if it is not loaded.
+     *
+     * @param login true if the player is logging in, which keeps the session until they quit.
+     */
+    private PlayerSession getSession(UUID uuid, boolean login) {
+        while (true) {
+            PlayerSession session = sessions.get(uuid);
+            if (session == null) {
+                PlayerSession loaded = new PlayerSession(uuid, read(uuid));
+                loaded.online = login || plugin.getServer().getPlayer(uuid) != null;
+                session = sessions.putIfAbsent(uuid, loaded);
+                if (session == null) return loaded;
+            }
+            if (!login) return session;
+            synchronized (session) {
+                // A session that is being evicted was already written, so it can be read again.
+                if (!session.isEvicted()) {
+                    session.online = true;
+                    return session;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the session of a player to change it, which keeps it from being evicted until
+     * {@link PlayerSession#endWrite()} is called.
+     */
+    private PlayerSession beginWrite(UUID uuid) {
+        while (true) {
+            PlayerSession session = getSession(uuid, false);
+            if (session.beginWrite()) return session;
+            // The session was evicted after it was looked up, so its data is read again.
+            sessions.remove(uuid, session);
+        }
+    }
+
+    private Map<String, Object> read(UUID uuid) {
         try {
-            dataConfig.save(dataFile);
+            return storage.load(uuid);
         } catch (IOException e) {
-            e.printStackTrace();
+            throw new IllegalStateException("Unable to load the data of " + uuid, e);
         }
     }
 }
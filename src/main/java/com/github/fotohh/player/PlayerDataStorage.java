@@ -0,0 +1,96 @@
+package com.github.fotohh.player;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * The PlayerDataStorage interface is where {@link PlayerDataManager} reads and writes player data.
+ * The data of a player is a flat map of keys, which may contain dots, to their values.
+ * Implementations are called from the login thread and the flush thread, possibly at the same time,
+ * so they must be thread-safe.
+ *
+ * @see YamlPlayerDataStorage
+ * @see SqlitePlayerDataStorage
+ * @since 3.1.0
+ */
+public interface PlayerDataStorage {
+
+    /**
+     * Reads the data of a player.
+     *
+     * @param uuid The UUID of the player.
+     * @return The keys and values of the player, empty if there is no data.
+     * @throws IOException if the data cannot be read.
+     * @since 3.1.0
+     */
+    Map<String, Object> load(UUID uuid) throws IOException;
+
+    /**
+     * Writes the changes of one or more players, as one batch where the storage supports it.
+     *
+     * @param changes The changes per player.
+     * @throws IOException if the changes cannot be written. They are retried by the next flush.
+     * @since 3.1.0
+     */
+    void save(List<Changes> changes) throws IOException;
+
+    /**
+     * Releases the resources of the storage. Called by {@link PlayerDataManager#close()} after the last flush.
+     *
+     * @since 3.1.0
+     */
+    default void close() {
+    }
+
+    /**
+     * The keys of a player that changed since their data was last written.
+     *
+     * @since 3.1.0
+     */
+    final class Changes {
+
+        private final UUID uuid;
+        private final Map<String, Object> values;
+        private final Set<String> changedKeys;
+
+        Changes(UUID uuid, Map<String, Object> values, Set<String> changedKeys) {
+            this.uuid = uuid;
+            this.values = Collections.unmodifiableMap(values);
+            this.changedKeys = Collections.unmodifiableSet(changedKeys);
+        }
+
+        /**
+         * Gets the UUID of the player.
+         *
+         * @return The UUID.
+         * @since 3.1.0
+         */
+        public UUID getUuid() {
+            return uuid;
+        }
+
+        /**
+         * Gets every value of the player, for storages that write all data of a player at once.
+         *
+         * @return A view of the current values.
+         * @since 3.1.0
+         */
+        public Map<String, Object> getValues() {
+            return values;
+        }
+
+        /**
+         * Gets the keys that changed. A changed key without a value was removed.
+         *
+         * @return The changed keys.
+         * @since 3.1.0
+         */
+        public Set<String> getChangedKeys() {
+            return changedKeys;
+        }
+    }
+}
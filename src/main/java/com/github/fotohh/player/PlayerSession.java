@@ -0,0 +1,414 @@
+package com.github.fotohh.player;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongUnaryOperator;
+import java.util.function.UnaryOperator;
+
+/**
+ * The data of one player held in memory by {@link PlayerDataManager}. Values are keyed by their full path
+ * and may be read and changed from any thread; every change records its key until the next flush writes it.
+ * The keys still form a tree like in a configuration: setting a key replaces the values below it and the value
+ * of any key above it, and a key that has values below it reads as a section. Maps and sections are stored as
+ * the values below their key, so they read the same after the data was written and read again.
+ * Evicting and logging in synchronize on the session.
+ * <p>
+ * Changes are made between {@link #beginWrite()} and {@link #endWrite()}. A session is only evicted while no
+ * change is in progress, and a change can not begin once it is evicted, so a change is never made to a
+ * session that is no longer written.
+ * <p>
+ * Values of {@link DataKey}s are held in the slot of their key instead: ints, longs, doubles and booleans as
+ * the bits of a long, other values decoded. Slots are grouped in pages of {@value #PAGE_SIZE}, created when
+ * a key of the page is first used and never copied, so a change can not be lost to a concurrent resize.
+ * A slot is decoded from the stored values the first time it is used, and encoded back into them when it is flushed.
+ * Slots are changed with atomic operations, so concurrent updates of one value are never lost; a key is only marked
+ * dirty after its slot changed, so a flush never misses the last change.
+ */
+final class PlayerSession {
+
+    static final int PAGE_SIZE = 64;
+    static final int MAX_PAGES = 64;
+    private static final int PAGE_SHIFT = 6;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int EVICTED = -1;
+
+    final UUID uuid;
+    final Map<String, Object> values;
+    final Set<String> dirtyKeys = ConcurrentHashMap.newKeySet();
+    private final AtomicReferenceArray<Page> pages = new AtomicReferenceArray<>(MAX_PAGES);
+    private final AtomicInteger writers = new AtomicInteger();
+    volatile boolean online;
+
+    PlayerSession(UUID uuid, Map<String, Object> values) {
+        this.uuid = uuid;
+        this.values = new ConcurrentHashMap<>(values);
+    }
+
+    /**
+     * Registers a change in progress.
+     *
+     * @return false if the session was evicted, in which case the change must be made to a new session.
+     */
+    boolean beginWrite() {
+        while (true) {
+            int current = writers.get();
+            if (current == EVICTED) return false;
+            if (writers.compareAndSet(current, current + 1)) return true;
+        }
+    }
+
+    void endWrite() {
+        writers.decrementAndGet();
+    }
+
+    /**
+     * Evicts the session if the player is offline, no change is in progress and every change was written.
+     * Called while synchronized on the session.
+     */
+    boolean tryEvict() {
+        if (online || !dirtyKeys.isEmpty() || !writers.compareAndSet(0, EVICTED)) return false;
+        // A change that ended between the checks above is only seen now.
+        if (dirtyKeys.isEmpty()) return true;
+        writers.set(0);
+        return false;
+    }
+
+    boolean isEvicted() {
+        return writers.get() == EVICTED;
+    }
+
+    Object get(String name) {
+        DataKey<?> key = DataKey.byName(name);
+        if (key == null) {
+            Object value = values.get(name);
+            return value != null ? value : getSection(name);
+        }
+        if (key.getKind() == DataKey.Kind.OBJECT) return getObject(key);
+        return key.box(page(key).bits.get(key.getSlot() & PAGE_MASK));
+    }
+
+    /**
+     * Copies the values below a key into a new section.
+     *
+     * @return The section, or null if there are no values below the key.
+     */
+    private ConfigurationSection getSection(String name) {
+        String prefix = name + ".";
+        MemoryConfiguration section = null;
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            // The stored values of DataKeys may be older than their slots.
+            if (!entry.getKey().startsWith(prefix) || DataKey.byName(entry.getKey()) != null) continue;
+            if (section == null) section = new MemoryConfiguration();
+            section.set(entry.getKey().substring(prefix.length()), entry.getValue());
+        }
+        for (DataKey<?> key : DataKey.byPrefix(prefix)) {
+            Object value = get(key.getName());
+            if (value == null || Objects.equals(value, key.getDefaultValue())) continue;
+            if (section == null) section = new MemoryConfiguration();
+            section.set(key.getName().substring(prefix.length()), value);
+        }
+        return section;
+    }
+
+    void set(String name, Object value) {
+        DataKey<?> key = DataKey.byName(name);
+        if (key != null && !(value instanceof Map) && !(value instanceof ConfigurationSection)) {
+            setTyped(key, value);
+            return;
+        }
+        removeAbove(name);
+        removeBelow(name);
+        if (value instanceof ConfigurationSection) value = ((ConfigurationSection) value).getValues(false);
+        if (value instanceof Map) {
+            remove(name);
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                set(name + "." + entry.getKey(), entry.getValue());
+            }
+            return;
+        }
+        if (value == null) {
+            values.remove(name);
+        } else {
+            values.put(name, value);
+        }
+        dirtyKeys.add(name);
+    }
+
+    /**
+     * Removes the values of the keys above a key, which can not have a value and values below them at once.
+     */
+    private void removeAbove(String name) {
+        for (int dot = name.indexOf('.'); dot != -1; dot = name.indexOf('.', dot + 1)) {
+            remove(name.substring(0, dot));
+        }
+    }
+
+    /**
+     * Removes the values of the keys below a key.
+     */
+    private void removeBelow(String name) {
+        String prefix = name + ".";
+        for (String child : values.keySet()) {
+            if (child.startsWith(prefix)) remove(child);
+        }
+        for (DataKey<?> key : DataKey.byPrefix(prefix)) {
+            remove(key.getName());
+        }
+    }
+
+    private void remove(String name) {
+        DataKey<?> key = DataKey.byName(name);
+        if (key != null) {
+            if (!Objects.equals(get(name), key.getDefaultValue())) setTyped(key, null);
+        } else if (values.remove(name) != null) {
+            dirtyKeys.add(name);
+        }
+    }
+
+    private void setTyped(DataKey<?> key, Object value) {
+        if (key.getKind() == DataKey.Kind.OBJECT) {
+            setObject(key, value != null ? convert(key, value) : key.getDefaultValue());
+            return;
+        }
+        try {
+            setBits(key, key.getKind(), value != null ? key.unbox(value) : key.getDefaultBits());
+        } catch (ClassCastException | IllegalArgumentException e) {
+            throw new IllegalArgumentException(value + " is not a valid value of " + key, e);
+        }
+    }
+
+    /**
+     * Encodes and decodes a value, whose type the compiler does not check when it is set by name,
+     * so a value of the wrong type is refused now instead of failing the flush.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T convert(DataKey<T> key, Object value) {
+        try {
+            T converted = key.getCodec().decode(key.getCodec().encode((T) value));
+            if (converted == null) throw new IllegalArgumentException("The codec returned null");
+            return converted;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException(value + " is not a valid value of " + key, e);
+        }
+    }
+
+    long getBits(DataKey<?> key, DataKey.Kind kind) {
+        checkKind(key, kind);
+        return page(key).bits.get(key.getSlot() & PAGE_MASK);
+    }
+
+    void setBits(DataKey<?> key, DataKey.Kind kind, long bits) {
+        checkKind(key, kind);
+        page(key).bits.set(key.getSlot() & PAGE_MASK, bits);
+        dirtyKeys.add(key.getName());
+    }
+
+    Object getObject(DataKey<?> key) {
+        checkKind(key, DataKey.Kind.OBJECT);
+        return page(key).objects.get(key.getSlot() & PAGE_MASK);
+    }
+
+    void setObject(DataKey<?> key, Object value) {
+        checkKind(key, DataKey.Kind.OBJECT);
+        page(key).objects.set(key.getSlot() & PAGE_MASK, value);
+        dirtyKeys.add(key.getName());
+    }
+
+    /**
+     * Adds to the value of an int slot, wrapping around on overflow like int arithmetic.
+     */
+    int addInt(DataKey<?> key, int delta) {
+        checkKind(key, DataKey.Kind.INT);
+        AtomicLongArray bits = page(key).bits;
+        int index = key.getSlot() & PAGE_MASK;
+        long previous;
+        int next;
+        do {
+            previous = bits.get(index);
+            next = (int) previous + delta;
+        } while (!bits.compareAndSet(index, previous, next));
+        dirtyKeys.add(key.getName());
+        return next;
+    }
+
+    long addLong(DataKey<?> key, long delta) {
+        checkKind(key, DataKey.Kind.LONG);
+        long next = page(key).bits.addAndGet(key.getSlot() & PAGE_MASK, delta);
+        dirtyKeys.add(key.getName());
+        return next;
+    }
+
+    double addDouble(DataKey<?> key, double delta) {
+        checkKind(key, DataKey.Kind.DOUBLE);
+        AtomicLongArray bits = page(key).bits;
+        int index = key.getSlot() & PAGE_MASK;
+        long previous;
+        double next;
+        do {
+            previous = bits.get(index);
+            next = Double.longBitsToDouble(previous) + delta;
+        } while (!bits.compareAndSet(index, previous, Double.doubleToRawLongBits(next)));
+        dirtyKeys.add(key.getName());
+        return next;
+    }
+
+    /**
+     * Sets the bits of a slot if they are the expected bits.
+     */
+    boolean compareAndSetBits(DataKey<?> key, DataKey.Kind kind, long expect, long update) {
+        checkKind(key, kind);
+        if (!page(key).bits.compareAndSet(key.getSlot() & PAGE_MASK, expect, update)) return false;
+        dirtyKeys.add(key.getName());
+        return true;
+    }
+
+    /**
+     * Applies the function to the bits of a slot until no other thread changed them in between.
+     */
+    long updateBits(DataKey<?> key, DataKey.Kind kind, LongUnaryOperator function) {
+        checkKind(key, kind);
+        long next = page(key).bits.updateAndGet(key.getSlot() & PAGE_MASK, function);
+        dirtyKeys.add(key.getName());
+        return next;
+    }
+
+    /**
+     * Sets the value of an object slot if it equals the expected value.
+     */
+    boolean compareAndSetObject(DataKey<?> key, Object expect, Object update) {
+        checkKind(key, DataKey.Kind.OBJECT);
+        AtomicReferenceArray<Object> objects = page(key).objects;
+        int index = key.getSlot() & PAGE_MASK;
+        while (true) {
+            Object current = objects.get(index);
+            if (!Objects.equals(current, expect)) return false;
+            if (objects.compareAndSet(index, current, update)) {
+                dirtyKeys.add(key.getName());
+                return true;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T updateObject(DataKey<T> key, UnaryOperator<T> function) {
+        checkKind(key, DataKey.Kind.OBJECT);
+        T next = (T) page(key).objects.updateAndGet(key.getSlot() & PAGE_MASK, value -> function.apply((T) value));
+        dirtyKeys.add(key.getName());
+        return next;
+    }
+
+    private static void checkKind(DataKey<?> key, DataKey.Kind kind) {
+        if (key.getKind() != kind) {
+            throw new IllegalArgumentException(key + " does not hold " + kind.name().toLowerCase(Locale.ROOT) + " values.");
+        }
+    }
+
+    /**
+     * Gets the page of a key, creating it and decoding the slots of keys that were not used yet.
+     */
+    private Page page(DataKey<?> key) {
+        int index = key.getSlot() >>> PAGE_SHIFT;
+        Page page = pages.get(index);
+        if (page == null) {
+            pages.compareAndSet(index, null, new Page());
+            page = pages.get(index);
+        }
+        if ((key.getSlot() & PAGE_MASK) >= page.initialized) initialize(page, index);
+        return page;
+    }
+
+    /**
+     * Decodes the slots of the page whose keys were created since it was last initialized.
+     * A slot is never read or written before it is initialized, so this does not race with changes.
+     */
+    private void initialize(Page page, int index) {
+        synchronized (page) {
+            int first = index << PAGE_SHIFT;
+            int end = Math.min(PAGE_SIZE, DataKey.count() - first);
+            for (int i = page.initialized; i < end; i++) {
+                DataKey<?> key = DataKey.bySlot(first + i);
+                Object stored = values.get(key.getName());
+                Object value = key.getDefaultValue();
+                if (stored != null) {
+                    try {
+                        value = key.getCodec().decode(stored);
+                    } catch (RuntimeException ignored) {
+                        // A value of another type, for example from before the key was typed, is replaced by the default.
+                    }
+                }
+                if (key.getKind() == DataKey.Kind.OBJECT) {
+                    page.objects.set(i, value);
+                } else {
+                    page.bits.set(i, value != null ? key.unbox(value) : key.getDefaultBits());
+                }
+            }
+            if (end > page.initialized) page.initialized = end;
+        }
+    }
+
+    /**
+     * Takes the keys changed since the last call, encoding the slots of changed DataKeys into the values.
+     * A key changed again while it is being written is kept, since it is only marked after its value is stored.
+     * If a value can not be encoded, the keys taken so far are marked again and the exception is thrown.
+     */
+    Set<String> drainDirtyKeys() {
+        Set<String> keys = new HashSet<>();
+        try {
+            for (Iterator<String> iterator = dirtyKeys.iterator(); iterator.hasNext(); ) {
+                String name = iterator.next();
+                iterator.remove();
+                keys.add(name);
+                DataKey<?> key = DataKey.byName(name);
+                if (key != null) encode(key);
+            }
+        } catch (RuntimeException e) {
+            dirtyKeys.addAll(keys);
+            throw e;
+        }
+        return keys;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void encode(DataKey<T> key) {
+        Page page = pages.get(key.getSlot() >>> PAGE_SHIFT);
+        int index = key.getSlot() & PAGE_MASK;
+        if (page == null || index >= page.initialized) return;
+        if (key.getKind() == DataKey.Kind.OBJECT) {
+            T value = (T) page.objects.get(index);
+            if (value == null || Objects.equals(value, key.getDefaultValue())) {
+                values.remove(key.getName());
+            } else {
+                values.put(key.getName(), key.getCodec().encode(value));
+            }
+            return;
+        }
+        long bits = page.bits.get(index);
+        if (bits == key.getDefaultBits()) {
+            values.remove(key.getName());
+        } else {
+            values.put(key.getName(), key.box(bits));
+        }
+    }
+
+    /**
+     * The slots of {@value #PAGE_SIZE} keys.
+     */
+    private static final class Page {
+
+        private final AtomicLongArray bits = new AtomicLongArray(PAGE_SIZE);
+        private final AtomicReferenceArray<Object> objects = new AtomicReferenceArray<>(PAGE_SIZE);
+        private volatile int initialized;
+    }
+}
@@ -0,0 +1,241 @@
+package com.github.fotohh.player;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.Plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The SqlitePlayerDataStorage class stores player data in an embedded SQLite database, one row per player and key,
+ * so saving writes only the keys that changed. Uses the SQLite JDBC driver bundled with Spigot servers.
+ * <p>
+ * Connections are kept in a small pool and the database uses write-ahead logging, so logins can read while
+ * a flush writes. Each {@link #save(List)} is one transaction with batched upserts and deletes.
+ * <p>
+ * Strings, whole numbers, decimals and booleans are stored as they are; other values, such as lists and
+ * items, are stored as YAML. Maps are read back as maps.
+ *
+ * @since 3.1.0
+ */
+public class SqlitePlayerDataStorage implements PlayerDataStorage {
+
+    private static final String TABLE = "player_data";
+    private static final int DEFAULT_POOL_SIZE = 4;
+    private static final long CONNECTION_TIMEOUT_SECONDS = 30;
+
+    private static final int STRING = 0;
+    private static final int LONG = 1;
+    private static final int INT = 2;
+    private static final int DOUBLE = 3;
+    private static final int BOOLEAN = 4;
+    private static final int YAML = 5;
+
+    private static final String SELECT = "SELECT data_key, type, value FROM " + TABLE + " WHERE uuid = ?";
+    private static final String UPSERT = "INSERT OR REPLACE INTO " + TABLE + " (uuid, data_key, type, value) VALUES (?, ?, ?, ?)";
+    private static final String DELETE = "DELETE FROM " + TABLE + " WHERE uuid = ? AND data_key = ?";
+
+    private final BlockingQueue<Connection> pool;
+    private final int poolSize;
+
+    /**
+     * Creates a storage in the file "playerdata.db" in the data folder of the plugin.
+     *
+     * @param plugin The plugin whose data folder is used.
+     * @throws IOException if the database cannot be opened.
+     * @since 3.1.0
+     */
+    public SqlitePlayerDataStorage(Plugin plugin) throws IOException {
+        this(new File(plugin.getDataFolder(), "playerdata.db"), DEFAULT_POOL_SIZE);
+    }
+
+    /**
+     * Creates a storage in the given database file, creating the file and table if they do not exist.
+     *
+     * @param file     The database file.
+     * @param poolSize The number of connections to keep open.
+     * @throws IOException if the database cannot be opened.
+     * @since 3.1.0
+     */
+    public SqlitePlayerDataStorage(File file, int poolSize) throws IOException {
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException("The pool size must be positive.");
+        }
+        File folder = file.getAbsoluteFile().getParentFile();
+        if (folder != null && !folder.exists() && !folder.mkdirs()) {
+            throw new IOException("Unable to create " + folder.getPath());
+        }
+        this.poolSize = poolSize;
+        this.pool = new ArrayBlockingQueue<>(poolSize);
+        try {
+            Class.forName("org.sqlite.JDBC");
+            for (int i = 0; i < poolSize; i++) {
+                Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("PRAGMA busy_timeout = 5000");
+                    if (i == 0) {
+                        statement.execute("PRAGMA journal_mode = WAL");
+                        statement.execute("CREATE TABLE IF NOT EXISTS " + TABLE + " (uuid TEXT NOT NULL, data_key TEXT NOT NULL, "
+                                + "type INTEGER NOT NULL, value TEXT, PRIMARY KEY (uuid, data_key)) WITHOUT ROWID");
+                    }
+                    statement.execute("PRAGMA synchronous = NORMAL");
+                }
+                pool.add(connection);
+            }
+        } catch (ClassNotFoundException | SQLException e) {
+            close();
+            throw new IOException("Unable to open the player database " + file.getPath(), e);
+        }
+    }
+
+    @Override
+    public Map<String, Object> load(UUID uuid) throws IOException {
+        Connection connection = acquire();
+        try (PreparedStatement statement = connection.prepareStatement(SELECT)) {
+            statement.setString(1, uuid.toString());
+            Map<String, Object> values = new HashMap<>();
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    values.put(result.getString(1), decode(result.getInt(2), result.getString(3)));
+                }
+            }
+            return values;
+        } catch (SQLException e) {
+            throw new IOException("Unable to load the data of " + uuid, e);
+        } finally {
+            pool.add(connection);
+        }
+    }
+
+    @Override
+    public void save(List<Changes> changes) throws IOException {
+        Connection connection = acquire();
+        try {
+            connection.setAutoCommit(false);
+            try (PreparedStatement upsert = connection.prepareStatement(UPSERT);
+                 PreparedStatement delete = connection.prepareStatement(DELETE)) {
+                for (Changes change : changes) {
+                    String uuid = change.getUuid().toString();
+                    for (String key : change.getChangedKeys()) {
+                        Object value = change.getValues().get(key);
+                        if (value == null) {
+                            delete.setString(1, uuid);
+                            delete.setString(2, key);
+                            delete.addBatch();
+                            continue;
+                        }
+                        upsert.setString(1, uuid);
+                        upsert.setString(2, key);
+                        upsert.setInt(3, typeOf(value));
+                        upsert.setString(4, encode(value));
+                        upsert.addBatch();
+                    }
+                }
+                upsert.executeBatch();
+                delete.executeBatch();
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new IOException("Unable to save player data", e);
+        } finally {
+            pool.add(connection);
+        }
+    }
+
+    /**
+     * Closes the connections that are not in use. Call this after the last save.
+     */
+    @Override
+    public void close() {
+        for (int i = 0; i < poolSize; i++) {
+            Connection connection = pool.poll();
+            if (connection == null) return;
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+            }
+        }
+    }
+
+    private Connection acquire() throws IOException {
+        try {
+            Connection connection = pool.poll(CONNECTION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (connection == null) throw new IOException("Timed out waiting for a database connection");
+            return connection;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a database connection", e);
+        }
+    }
+
+    private static int typeOf(Object value) {
+        if (value instanceof String) return STRING;
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) return INT;
+        if (value instanceof Long) return LONG;
+        if (value instanceof Double || value instanceof Float) return DOUBLE;
+        if (value instanceof Boolean) return BOOLEAN;
+        return YAML;
+    }
+
+    private static String encode(Object value) {
+        if (typeOf(value) != YAML) return value.toString();
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("value", value);
+        return config.saveToString();
+    }
+
+    private static Object decode(int type, String value) throws IOException {
+        switch (type) {
+            case STRING:
+                return value;
+            case INT:
+                return Integer.parseInt(value);
+            case LONG:
+                return Long.parseLong(value);
+            case DOUBLE:
+                return Double.parseDouble(value);
+            case BOOLEAN:
+                return Boolean.parseBoolean(value);
+            default:
+                YamlConfiguration config = new YamlConfiguration();
+                try {
+                    config.loadFromString(value);
+                } catch (InvalidConfigurationException e) {
+                    throw new IOException("Invalid stored value", e);
+                }
+                Object decoded = config.get("value");
+                // The YAML loader turns a stored map into a section, which would be tied to the discarded config.
+                return decoded instanceof ConfigurationSection ? toMap((ConfigurationSection) decoded) : decoded;
+        }
+    }
+
+    private static Map<String, Object> toMap(ConfigurationSection section) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (String key : section.getKeys(false)) {
+            Object value = section.get(key);
+            map.put(key, value instanceof ConfigurationSection ? toMap((ConfigurationSection) value) : value);
+        }
+        return map;
+    }
+}
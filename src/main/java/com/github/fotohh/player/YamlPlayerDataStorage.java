@@ -0,0 +1,121 @@
+package com.github.fotohh.player;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.Plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The YamlPlayerDataStorage class stores the data of every player in their own YAML file,
+ * {@code playerdata/<xx>/<uuid>.yml}, where {@code xx} are the first two characters of the UUID.
+ * Saving a player rewrites only their file. The file is written to a temporary file first and moved over the
+ * old one, so a crash while saving leaves either the old or the new data.
+ *
+ * @since 3.1.0
+ */
+public class YamlPlayerDataStorage implements PlayerDataStorage {
+
+    private static final String DATA_FOLDER = "playerdata";
+
+    private final File dataFolder;
+
+    /**
+     * Creates a storage in the "playerdata" folder of the plugin.
+     *
+     * @param plugin The plugin whose data folder is used.
+     * @since 3.1.0
+     */
+    public YamlPlayerDataStorage(Plugin plugin) {
+        this(new File(plugin.getDataFolder(), DATA_FOLDER));
+    }
+
+    /**
+     * Creates a storage in the given folder.
+     *
+     * @param dataFolder The folder holding the player files.
+     * @since 3.1.0
+     */
+    public YamlPlayerDataStorage(File dataFolder) {
+        this.dataFolder = dataFolder;
+    }
+
+    @Override
+    public Map<String, Object> load(UUID uuid) throws IOException {
+        File file = getDataFile(uuid);
+        Map<String, Object> values = new HashMap<>();
+        if (!file.exists()) return values;
+        FileConfiguration config = new YamlConfiguration();
+        try {
+            config.load(file);
+        } catch (InvalidConfigurationException e) {
+            throw new IOException("Invalid player data in " + file.getPath(), e);
+        }
+        for (Map.Entry<String, Object> entry : config.getValues(true).entrySet()) {
+            if (!(entry.getValue() instanceof ConfigurationSection)) values.put(entry.getKey(), entry.getValue());
+        }
+        return values;
+    }
+
+    @Override
+    public void save(List<Changes> changes) throws IOException {
+        IOException failure = null;
+        for (Changes change : changes) {
+            FileConfiguration config = new YamlConfiguration();
+            for (Map.Entry<String, Object> entry : change.getValues().entrySet()) {
+                config.set(entry.getKey(), entry.getValue());
+            }
+            File file = getDataFile(change.getUuid());
+            try {
+                write(file, config.saveToString());
+            } catch (IOException e) {
+                // Keep writing the other players; the whole batch is retried.
+                if (failure == null) failure = new IOException("Unable to save player data to " + file.getPath(), e);
+            }
+        }
+        if (failure != null) throw failure;
+    }
+
+    private static void write(File file, String contents) throws IOException {
+        Path target = file.toPath().toAbsolutePath();
+        Files.createDirectories(target.getParent());
+        Path temp = target.resolveSibling(file.getName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer bytes = StandardCharsets.UTF_8.encode(contents);
+            while (bytes.hasRemaining()) channel.write(bytes);
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Gets the file holding the data of a player.
+     *
+     * @param uuid The UUID of the player.
+     * @return The file, which may not exist yet.
+     * @since 3.1.0
+     */
+    public File getDataFile(UUID uuid) {
+        String id = uuid.toString();
+        return new File(new File(dataFolder, id.substring(0, 2)), id + ".yml");
+    }
+}
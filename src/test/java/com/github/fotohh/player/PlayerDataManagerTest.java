@@ -0,0 +1,247 @@
+package com.github.fotohh.player;
+
+import org.bukkit.Server;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PlayerDataManagerTest {
+
+    private static final DataKey<Integer> KILLS = DataKey.ofInt("test.kills", 0);
+    private static final DataKey<Double> BALANCE = DataKey.ofDouble("test.balance", 0);
+    private static final DataKey<Integer> COINS = DataKey.ofInt("test.coins", 0);
+    private static final AtomicBoolean FAIL_ENCODING = new AtomicBoolean();
+    private static final DataKey<String> RANK = DataKey.of("test.rank", DataCodec.of(value -> {
+        if (FAIL_ENCODING.get()) throw new IllegalStateException("Unable to encode " + value);
+        return value;
+    }, Object::toString), null);
+
+    private static final int THREADS = 8;
+    private static final int UPDATES = 100_000;
+
+    @TempDir
+    File folder;
+
+    private final MemoryStorage storage = new MemoryStorage();
+    private ExecutorService executor;
+    private PlayerDataManager manager;
+
+    @BeforeEach
+    void open() {
+        executor = Executors.newFixedThreadPool(THREADS + 2);
+        manager = new PlayerDataManager(mockPlugin(), storage, 100);
+    }
+
+    @AfterEach
+    void close() {
+        executor.shutdownNow();
+        FAIL_ENCODING.set(false);
+    }
+
+    @Test
+    void parallelAddsAreNotLost() throws Exception {
+        UUID uuid = UUID.randomUUID();
+
+        runInParallel(() -> {
+            for (int i = 0; i < UPDATES; i++) {
+                manager.addInt(uuid, KILLS, 1);
+                manager.addDouble(uuid, BALANCE, 0.5);
+            }
+        }, false);
+
+        assertEquals(THREADS * UPDATES, manager.getInt(uuid, KILLS));
+        assertEquals(THREADS * UPDATES * 0.5, manager.getDouble(uuid, BALANCE));
+    }
+
+    @Test
+    void addsAreNotLostToConcurrentEviction() throws Exception {
+        UUID uuid = UUID.randomUUID();
+
+        runInParallel(() -> {
+            for (int i = 0; i < UPDATES; i++) {
+                manager.addInt(uuid, KILLS, 1);
+            }
+        }, true);
+        manager.flush();
+
+        assertFalse(manager.isLoaded(uuid));
+        assertEquals(THREADS * UPDATES, storage.get(uuid).get(KILLS.getName()));
+    }
+
+    @Test
+    void compareAndSetIsNotLostToConcurrentEviction() throws Exception {
+        UUID uuid = UUID.randomUUID();
+
+        runInParallel(() -> {
+            for (int i = 0; i < UPDATES; i++) {
+                int current;
+                do {
+                    current = manager.getInt(uuid, COINS);
+                } while (!manager.compareAndSetInt(uuid, COINS, current, current + 1));
+            }
+        }, true);
+        manager.flush();
+
+        assertFalse(manager.isLoaded(uuid));
+        assertEquals(THREADS * UPDATES, storage.get(uuid).get(COINS.getName()));
+    }
+
+    @Test
+    void failedSaveIsRetriedOnTheNextFlush() {
+        UUID uuid = UUID.randomUUID();
+        manager.setInt(uuid, KILLS, 3);
+        manager.savePlayerData(uuid, "name", "Steve");
+
+        storage.failures.set(1);
+        manager.flush();
+
+        assertTrue(manager.isLoaded(uuid));
+        assertTrue(storage.get(uuid).isEmpty());
+
+        manager.flush();
+
+        assertFalse(manager.isLoaded(uuid));
+        assertEquals(3, storage.get(uuid).get(KILLS.getName()));
+        assertEquals("Steve", storage.get(uuid).get("name"));
+    }
+
+    @Test
+    void failedEncodingOnlyHoldsBackItsPlayer() {
+        UUID failing = UUID.randomUUID();
+        UUID other = UUID.randomUUID();
+        manager.set(failing, RANK, "admin");
+        manager.setInt(failing, KILLS, 1);
+        manager.setInt(other, KILLS, 2);
+
+        FAIL_ENCODING.set(true);
+        manager.flush();
+
+        assertTrue(manager.isLoaded(failing));
+        assertTrue(storage.get(failing).isEmpty());
+        assertEquals(2, storage.get(other).get(KILLS.getName()));
+
+        FAIL_ENCODING.set(false);
+        manager.flush();
+
+        assertFalse(manager.isLoaded(failing));
+        assertEquals("admin", storage.get(failing).get(RANK.getName()));
+        assertEquals(1, storage.get(failing).get(KILLS.getName()));
+    }
+
+    @Test
+    void wholeNumbersOutOfRangeAreRefused() {
+        UUID uuid = UUID.randomUUID();
+        manager.savePlayerData(uuid, KILLS.getName(), 7L);
+
+        assertThrows(IllegalArgumentException.class, () -> manager.savePlayerData(uuid, KILLS.getName(), 1L << 32));
+        assertThrows(IllegalArgumentException.class, () -> manager.savePlayerData(uuid, KILLS.getName(), 2.5));
+
+        assertEquals(7, manager.getInt(uuid, KILLS));
+    }
+
+    /**
+     * Runs the task on every thread at once, optionally flushing on two more threads until the tasks are done.
+     */
+    private void runInParallel(Runnable task, boolean flush) throws Exception {
+        AtomicBoolean done = new AtomicBoolean();
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            tasks.add(executor.submit(task));
+        }
+        List<Future<?>> flushers = new ArrayList<>();
+        if (flush) {
+            for (int i = 0; i < 2; i++) {
+                flushers.add(executor.submit(() -> {
+                    while (!done.get()) manager.flush();
+                }));
+            }
+        }
+        for (Future<?> future : tasks) {
+            future.get();
+        }
+        done.set(true);
+        for (Future<?> future : flushers) {
+            future.get();
+        }
+    }
+
+    /**
+     * Mocks a plugin on a server without online players, so every session is evicted once it is written.
+     */
+    private JavaPlugin mockPlugin() {
+        JavaPlugin plugin = mock(JavaPlugin.class);
+        Server server = mock(Server.class);
+        BukkitScheduler scheduler = mock(BukkitScheduler.class);
+        when(plugin.getServer()).thenReturn(server);
+        when(plugin.getDataFolder()).thenReturn(folder);
+        when(plugin.getLogger()).thenReturn(Logger.getLogger(getClass().getName()));
+        when(server.getPluginManager()).thenReturn(mock(PluginManager.class));
+        when(server.getScheduler()).thenReturn(scheduler);
+        when(scheduler.runTaskTimerAsynchronously(any(Plugin.class), any(Runnable.class), anyLong(), anyLong()))
+                .thenReturn(mock(BukkitTask.class));
+        return plugin;
+    }
+
+    /**
+     * Keeps the written data in memory and fails the given number of saves.
+     */
+    private static final class MemoryStorage implements PlayerDataStorage {
+
+        private final Map<UUID, Map<String, Object>> data = new ConcurrentHashMap<>();
+        private final AtomicInteger failures = new AtomicInteger();
+
+        @Override
+        public Map<String, Object> load(UUID uuid) {
+            return new HashMap<>(get(uuid));
+        }
+
+        @Override
+        public void save(List<Changes> changes) throws IOException {
+            if (failures.getAndUpdate(count -> Math.max(count - 1, 0)) > 0) {
+                throw new IOException("Simulated failure");
+            }
+            for (Changes change : changes) {
+                Map<String, Object> stored = data.computeIfAbsent(change.getUuid(), uuid -> new ConcurrentHashMap<>());
+                for (String key : change.getChangedKeys()) {
+                    Object value = change.getValues().get(key);
+                    if (value != null) stored.put(key, value);
+                    else stored.remove(key);
+                }
+            }
+        }
+
+        Map<String, Object> get(UUID uuid) {
+            return data.getOrDefault(uuid, new HashMap<>());
+        }
+    }
+}
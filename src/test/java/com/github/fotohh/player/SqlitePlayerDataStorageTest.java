@@ -0,0 +1,116 @@
+package com.github.fotohh.player;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SqlitePlayerDataStorageTest {
+
+    @TempDir
+    File folder;
+
+    private SqlitePlayerDataStorage storage;
+
+    @BeforeEach
+    void open() throws IOException {
+        storage = new SqlitePlayerDataStorage(new File(folder, "playerdata.db"), 2);
+    }
+
+    @AfterEach
+    void close() {
+        storage.close();
+    }
+
+    @Test
+    void loadReturnsSavedValuesWithTheirTypes() throws IOException {
+        UUID uuid = UUID.randomUUID();
+        Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("c", "deep");
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("a", 1);
+        map.put("b", nested);
+        Map<String, Object> values = new HashMap<>();
+        values.put("name", "Steve");
+        values.put("stats.kills", 12);
+        values.put("stats.playtime", 5_000_000_000L);
+        values.put("balance", 10.5);
+        values.put("vip", true);
+        values.put("homes", Arrays.asList("spawn", "base"));
+        values.put("settings", map);
+
+        save(uuid, values, values.keySet());
+
+        assertEquals(values, storage.load(uuid));
+    }
+
+    @Test
+    void valuesSurviveReopening() throws IOException {
+        UUID uuid = UUID.randomUUID();
+        Map<String, Object> values = Collections.singletonMap("stats.kills", 3);
+        save(uuid, values, values.keySet());
+
+        storage.close();
+        open();
+
+        assertEquals(values, storage.load(uuid));
+    }
+
+    @Test
+    void changedKeysWithoutValueAreDeleted() throws IOException {
+        UUID uuid = UUID.randomUUID();
+        Map<String, Object> values = new HashMap<>();
+        values.put("a", 1);
+        values.put("b", 2);
+        save(uuid, values, values.keySet());
+
+        values.remove("a");
+        values.put("b", 3);
+        save(uuid, values, Set.of("a", "b"));
+
+        assertEquals(Collections.singletonMap("b", 3), storage.load(uuid));
+    }
+
+    @Test
+    void onlyChangedKeysAreWritten() throws IOException {
+        UUID uuid = UUID.randomUUID();
+        save(uuid, Map.of("a", 1, "b", 2), Set.of("a", "b"));
+
+        save(uuid, Map.of("a", 5, "b", 6), Set.of("a"));
+
+        assertEquals(Map.of("a", 5, "b", 2), storage.load(uuid));
+    }
+
+    @Test
+    void playersOfOneBatchAreKeptApart() throws IOException {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        Map<String, Object> firstValues = Map.of("kills", 1);
+        Map<String, Object> secondValues = Map.of("kills", 2, "deaths", 4);
+
+        storage.save(List.of(new PlayerDataStorage.Changes(first, firstValues, firstValues.keySet()),
+                new PlayerDataStorage.Changes(second, secondValues, secondValues.keySet())));
+
+        assertEquals(firstValues, storage.load(first));
+        assertEquals(secondValues, storage.load(second));
+        assertTrue(storage.load(UUID.randomUUID()).isEmpty());
+    }
+
+    private void save(UUID uuid, Map<String, Object> values, Set<String> changedKeys) throws IOException {
+        storage.save(Collections.singletonList(new PlayerDataStorage.Changes(uuid, values, changedKeys)));
+    }
+}